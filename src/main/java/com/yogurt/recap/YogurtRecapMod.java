@@ -3,10 +3,21 @@ package com.yogurt.recap;
 import com.yogurt.recap.commands.RecapCommand;
 import com.yogurt.recap.commands.RecapDebugCommand;
 import com.yogurt.recap.config.ModConfig;
+import com.yogurt.recap.features.history.HistoryStore;
 import com.yogurt.recap.features.killsgoldtracker.KillsGoldTracker;
 import com.yogurt.recap.features.spawntimes.SpawnTimes;
+import com.yogurt.recap.handler.AllocationTracker;
+import com.yogurt.recap.handler.DebugLog;
+import com.yogurt.recap.handler.PerfMetrics;
+import com.yogurt.recap.handler.PersistenceWriter;
 import com.yogurt.recap.handler.RoundTimer;
 import com.yogurt.recap.handler.ScoreboardManager;
+import com.yogurt.recap.handler.TablistKillsIndex;
+import com.yogurt.recap.handler.TickPipeline;
+import com.yogurt.recap.handler.TickPipeline.Phase;
+import com.yogurt.recap.handler.TickScheduler;
+import com.yogurt.recap.handler.WaveTimings;
+import com.yogurt.recap.handler.ZombiesMapDetector;
 import net.minecraftforge.client.ClientCommandHandler;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.common.config.Configuration;
@@ -31,25 +42,58 @@ public class YogurtRecapMod {
 
     private static Logger LOGGER;
 
+    // Created first: the handlers below register their metrics and allocate their timer tasks from these.
+    private static final DebugLog DEBUG_LOG = new DebugLog();
+    private static final PerfMetrics PERF = new PerfMetrics();
+    private static final AllocationTracker ALLOCATIONS = new AllocationTracker();
+    private static final TickPipeline PIPELINE = new TickPipeline();
+    private static final TickScheduler SCHEDULER = new TickScheduler();
     private static final ScoreboardManager SCOREBOARD_MANAGER = new ScoreboardManager();
+    private static final TablistKillsIndex TABLIST_KILLS = new TablistKillsIndex();
     private static final RoundTimer ROUND_TIMER = new RoundTimer();
     private static final SpawnTimes SPAWN_TIMES = new SpawnTimes();
+    private static final ZombiesMapDetector MAP_DETECTOR = new ZombiesMapDetector();
+    private static final WaveTimings WAVE_TIMINGS = new WaveTimings();
+    private static final PersistenceWriter PERSISTENCE = new PersistenceWriter();
+    private static final HistoryStore HISTORY = new HistoryStore();
 
     private static KillsGoldTracker killsGoldTracker;
 
     @EventHandler
     public void preInit(FMLPreInitializationEvent event) {
         LOGGER = event.getModLog();
-        File cfgFile = new File(event.getModConfigurationDirectory(), MODID + ".cfg");
+        PERSISTENCE.start();
+        File configDir = event.getModConfigurationDirectory();
+        File cfgFile = new File(configDir, MODID + ".cfg");
         ModConfig.load(new Configuration(cfgFile));
+        boolean debugMode = ModConfig.KILLS_GOLD_TRACKER_DEBUG;
+        DEBUG_LOG.configure(configDir, debugMode ? DebugLog.Level.DEBUG : ModConfig.DEBUG_LOG_LEVEL, debugMode,
+                ModConfig.DEBUG_CHAT_LINES_PER_SECOND);
+        PERF.configure(configDir);
+        WAVE_TIMINGS.configure(configDir);
+        if (ModConfig.ALLOCATION_TRACKING && !AllocationTracker.setEnabled(true)) {
+            LOGGER.warn("Allocation tracking is not supported by this JVM");
+        }
+        PERSISTENCE.submit(() -> HISTORY.open(configDir)); // may catch up rollups over the whole history
+        PERSISTENCE.addFlushable(HISTORY);
     }
 
     @EventHandler
     public void init(FMLInitializationEvent event) {
-        MinecraftForge.EVENT_BUS.register(SCOREBOARD_MANAGER);
-        MinecraftForge.EVENT_BUS.register(ROUND_TIMER);
-        MinecraftForge.EVENT_BUS.register(SPAWN_TIMES);
-        MinecraftForge.EVENT_BUS.register(killsGoldTracker = new KillsGoldTracker());
+        killsGoldTracker = new KillsGoldTracker();
+        PIPELINE.add(Phase.SIDEBAR, "scoreboard_update", false, SCOREBOARD_MANAGER::onTick);
+        PIPELINE.add(Phase.SIDEBAR, "tablist_kills", false, TABLIST_KILLS::onTick);
+        PIPELINE.add(Phase.DETECTION, "map_detector", true, MAP_DETECTOR::onTick);
+        PIPELINE.add(Phase.DETECTION, "tablist_display_kills", true, TABLIST_KILLS::refreshDisplayKills);
+        PIPELINE.add(Phase.TIMER, "round_timer_tick", true, ROUND_TIMER::onTick);
+        PIPELINE.add(Phase.WAVE, "spawn_times_tick", true, SPAWN_TIMES::onTick);
+        PIPELINE.add(Phase.TRACKER, "kills_gold_tick", true, killsGoldTracker::onTick);
+        // Due tasks run after everything above, so they see this tick's published sidebar.
+        PIPELINE.add(Phase.OUTPUT, "scheduler_tick", false, SCHEDULER::onTick);
+        PIPELINE.add(Phase.OUTPUT, "debug_echo", false, DEBUG_LOG::onTick);
+        PIPELINE.add(Phase.OUTPUT, null, false, ALLOCATIONS::onTick); // closes the tick's allocation total
+        MinecraftForge.EVENT_BUS.register(PIPELINE);
+        MinecraftForge.EVENT_BUS.register(MAP_DETECTOR); // world load / unload
         
         // Register client-side commands
         ClientCommandHandler.instance.registerCommand(new RecapCommand());
@@ -60,10 +104,30 @@ public class YogurtRecapMod {
         return LOGGER;
     }
 
+    public static DebugLog getDebugLog() {
+        return DEBUG_LOG;
+    }
+
+    public static PerfMetrics getPerf() {
+        return PERF;
+    }
+
+    public static AllocationTracker getAllocations() {
+        return ALLOCATIONS;
+    }
+
+    public static TickScheduler getScheduler() {
+        return SCHEDULER;
+    }
+
     public static ScoreboardManager getScoreboardManager() {
         return SCOREBOARD_MANAGER;
     }
 
+    public static TablistKillsIndex getTablistKills() {
+        return TABLIST_KILLS;
+    }
+
     public static RoundTimer getRoundTimer() {
         return ROUND_TIMER;
     }
@@ -71,6 +135,25 @@ public class YogurtRecapMod {
     public static SpawnTimes getSpawnTimes() {
         return SPAWN_TIMES;
     }
+
+    public static ZombiesMapDetector getMapDetector() {
+        return MAP_DETECTOR;
+    }
+
+    public static WaveTimings getWaveTimings() {
+        return WAVE_TIMINGS;
+    }
+
+    public static PersistenceWriter getPersistence() {
+        return PERSISTENCE;
+    }
+
+    /**
+     * Owned by the persistence writer thread: go through {@link #getPersistence()} for every access.
+     */
+    public static HistoryStore getHistory() {
+        return HISTORY;
+    }
 }
 
 
@@ -1,13 +1,27 @@
 package com.yogurt.recap.commands;
 
+import com.yogurt.recap.YogurtRecapMod;
+import com.yogurt.recap.features.history.ExportFilter;
+import com.yogurt.recap.features.history.HistoryExporter;
+import com.yogurt.recap.features.history.HistoryRollups;
 import com.yogurt.recap.features.killsgoldtracker.KillsGoldTracker;
+import com.yogurt.recap.features.killsgoldtracker.PlayerRates;
+import com.yogurt.recap.handler.PerfMetrics;
+import com.yogurt.recap.utils.LanguageUtils;
 import net.minecraft.command.CommandBase;
 import net.minecraft.command.CommandException;
 import net.minecraft.command.ICommandSender;
 import net.minecraft.util.ChatComponentText;
 import net.minecraft.util.EnumChatFormatting;
 
+import java.io.File;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
 public class RecapCommand extends CommandBase {
+    private static final int MAX_HISTORY_LINES = 30;
+    private static final int MAX_RATE_WINDOW_SECONDS = 300;
+    private static final Pattern ROUND_RANGE = Pattern.compile("\\d+(-\\d+)?");
 
     @Override
     public String getCommandName() {
@@ -16,7 +30,7 @@ public class RecapCommand extends CommandBase {
 
     @Override
     public String getCommandUsage(ICommandSender sender) {
-        return "/recap <on|off>";
+        return "/recap <on|off|mark|waves [round]|history [map] [rounds]|best [map]|export <csv|json> [map:<map>] [rounds:<n-m>] [player:<name>]|perf [on|off|reset]|rates [seconds]>";
     }
 
     @Override
@@ -55,9 +69,320 @@ public class RecapCommand extends CommandBase {
                     EnumChatFormatting.YELLOW + "[YogurtRecap] " +
                     EnumChatFormatting.RED + "Chat messages disabled."
             ));
+        } else if (arg.equals("mark")) {
+            if (!KillsGoldTracker.markCheckpoint()) {
+                throw new CommandException("No Zombies round is being tracked.");
+            }
+        } else if (arg.equals("waves")) {
+            int round = args.length > 1 ? parseInt(args[1], 1) : KillsGoldTracker.getCurrentRound();
+            KillsGoldTracker.sendWaveBreakdown(round);
+        } else if (arg.equals("history")) {
+            sendHistory(sender, args);
+        } else if (arg.equals("best")) {
+            sendBest(sender, args);
+        } else if (arg.equals("export")) {
+            startExport(sender, args);
+        } else if (arg.equals("perf")) {
+            sendPerf(sender, args);
+        } else if (arg.equals("rates")) {
+            sendRates(sender, args);
+        } else {
+            throw new CommandException("Invalid argument. Use 'on', 'off', 'mark', 'waves [round]', 'history [map] [rounds]', "
+                    + "'best [map]', 'export <csv|json> [filter]', 'perf [on|off|reset]' or 'rates [seconds]'.");
+        }
+    }
+
+    // /recap history [map] [rounds]: per-round averages and bests from the incremental rollups (no history scan)
+    private static void sendHistory(ICommandSender sender, String[] args) throws CommandException {
+        HistoryRollups rollups = YogurtRecapMod.getHistory().getRollups();
+        int next = 1;
+        int map = args.length > next ? parseMap(args[next]) : -1;
+        if (map >= 0) {
+            next++;
+        } else {
+            map = currentMap();
+            if (map < 0) {
+                throw new CommandException("Not in a known Zombies map. Use /recap history <map> [rounds].");
+            }
+        }
+
+        int from = 1;
+        int to = Math.min(rollups.getBestRound(map), HistoryRollups.MAX_ROUND);
+        if (args.length > next) {
+            int[] range = parseRoundRange(args[next]);
+            from = range[0];
+            to = range[1];
+        }
+
+        sender.addChatMessage(new ChatComponentText(
+                EnumChatFormatting.YELLOW + "[YogurtRecap] " +
+                EnumChatFormatting.WHITE + mapName(map) + EnumChatFormatting.GRAY + " (" + rollups.getGames(map) + " games)" +
+                EnumChatFormatting.WHITE + " - average kills/gold per player:"
+        ));
+        int lines = 0;
+        for (int round = from; round <= to; round++) {
+            int count = rollups.getCount(map, round);
+            if (count == 0) {
+                continue;
+            }
+            if (lines++ == MAX_HISTORY_LINES) {
+                sender.addChatMessage(new ChatComponentText(EnumChatFormatting.GRAY + "... more rounds, pass a range such as "
+                        + round + "-" + to + "."));
+                return;
+            }
+            sender.addChatMessage(new ChatComponentText(String.format(
+                    "%sR%d %s(%d): %s%.1f%s\u00b1%.1f %s(best %d %s)  %s%.0f%s\u00b1%.0f %s(best %d %s)",
+                    EnumChatFormatting.YELLOW, round, EnumChatFormatting.GRAY, count,
+                    EnumChatFormatting.RED, rollups.getKillsMean(map, round), EnumChatFormatting.GRAY, rollups.getKillsStdDev(map, round),
+                    EnumChatFormatting.DARK_GRAY, rollups.getBestKills(map, round), rollups.getBestKillsPlayer(map, round),
+                    EnumChatFormatting.GOLD, rollups.getGoldMean(map, round), EnumChatFormatting.GRAY, rollups.getGoldStdDev(map, round),
+                    EnumChatFormatting.DARK_GRAY, rollups.getBestGold(map, round), rollups.getBestGoldPlayer(map, round))));
+        }
+        if (lines == 0) {
+            sender.addChatMessage(new ChatComponentText(EnumChatFormatting.GRAY + "No recorded rounds in that range."));
+        }
+    }
+
+    // /recap best [map]: best round reached and best single-round kills / gold per map
+    private static void sendBest(ICommandSender sender, String[] args) throws CommandException {
+        HistoryRollups rollups = YogurtRecapMod.getHistory().getRollups();
+        int onlyMap = -1;
+        if (args.length > 1) {
+            onlyMap = parseMap(args[1]);
+            if (onlyMap < 0) {
+                throw new CommandException("Unknown map '" + args[1] + "'.");
+            }
+        }
+
+        boolean any = false;
+        for (int map = 0; map < HistoryRollups.MAPS; map++) {
+            if ((onlyMap >= 0 && map != onlyMap) || rollups.getGames(map) == 0) {
+                continue;
+            }
+            any = true;
+            int killsRound = 0;
+            int goldRound = 0;
+            for (int round = 1; round <= HistoryRollups.MAX_ROUND; round++) {
+                if (rollups.getCount(map, round) == 0) {
+                    continue;
+                }
+                if (killsRound == 0 || rollups.getBestKills(map, round) > rollups.getBestKills(map, killsRound)) {
+                    killsRound = round;
+                }
+                if (goldRound == 0 || rollups.getBestGold(map, round) > rollups.getBestGold(map, goldRound)) {
+                    goldRound = round;
+                }
+            }
+            StringBuilder line = new StringBuilder();
+            line.append(EnumChatFormatting.YELLOW).append(mapName(map))
+                    .append(EnumChatFormatting.GRAY).append(" (").append(rollups.getGames(map)).append(" games): ")
+                    .append(EnumChatFormatting.WHITE).append("best round ").append(rollups.getBestRound(map));
+            if (killsRound > 0) {
+                line.append(EnumChatFormatting.GRAY).append(", ")
+                        .append(EnumChatFormatting.RED).append(rollups.getBestKills(map, killsRound)).append(" kills")
+                        .append(EnumChatFormatting.GRAY).append(" (").append(rollups.getBestKillsPlayer(map, killsRound))
+                        .append(", R").append(killsRound).append("), ")
+                        .append(EnumChatFormatting.GOLD).append(rollups.getBestGold(map, goldRound)).append(" gold")
+                        .append(EnumChatFormatting.GRAY).append(" (").append(rollups.getBestGoldPlayer(map, goldRound))
+                        .append(", R").append(goldRound).append(")");
+            }
+            sender.addChatMessage(new ChatComponentText(line.toString()));
+        }
+        if (!any) {
+            throw new CommandException("No recorded games yet.");
+        }
+    }
+
+    // /recap export <csv|json> [filter...]: filter tokens in any order, streamed on a background thread.
+    // "map:", "rounds:" and "player:" say what a token is; without a key, "n" / "n-m" is a round range, an exact map
+    // name is the map and anything else is a player.
+    private static void startExport(ICommandSender sender, String[] args) throws CommandException {
+        if (args.length < 2) {
+            throw new CommandException("Usage: /recap export <csv|json> [map:<map>] [rounds:<n-m>] [player:<name>]");
+        }
+        HistoryExporter.Format format;
+        if (args[1].equalsIgnoreCase("csv")) {
+            format = HistoryExporter.Format.CSV;
+        } else if (args[1].equalsIgnoreCase("json")) {
+            format = HistoryExporter.Format.JSON;
         } else {
-            throw new CommandException("Invalid argument. Use 'on' or 'off'.");
+            throw new CommandException("Unknown export format '" + args[1] + "'. Use 'csv' or 'json'.");
+        }
+
+        ExportFilter filter = new ExportFilter();
+        for (int i = 2; i < args.length; i++) {
+            String token = args[i];
+            String key = token.toLowerCase(Locale.ROOT);
+            if (key.startsWith("map:")) {
+                filter.map = parseMap(token.substring(4), true);
+                if (filter.map < 0) {
+                    throw new CommandException("Unknown map '" + token.substring(4) + "'.");
+                }
+            } else if (key.startsWith("rounds:") || ROUND_RANGE.matcher(token).matches()) {
+                int[] range = parseRoundRange(key.startsWith("rounds:") ? token.substring(7) : token);
+                filter.fromRound = range[0];
+                filter.toRound = range[1];
+            } else if (key.startsWith("player:")) {
+                filter.player = token.substring(7);
+            } else if (parseMap(token, false) >= 0) {
+                filter.map = parseMap(token, false);
+            } else {
+                filter.player = token;
+            }
+        }
+
+        File historyDir = YogurtRecapMod.getHistory().getDirectory();
+        if (historyDir == null) {
+            throw new CommandException("Round history is not available.");
+        }
+        if (!HistoryExporter.start(historyDir, format, filter)) {
+            throw new CommandException("An export is already running.");
+        }
+        sender.addChatMessage(new ChatComponentText(
+                EnumChatFormatting.YELLOW + "[YogurtRecap] " +
+                EnumChatFormatting.WHITE + "Exporting round history as " + format.name().toLowerCase() + "..."
+        ));
+    }
+
+    // Rollup map index for the current world, or -1
+    private static int currentMap() {
+        LanguageUtils.ZombiesMap map = LanguageUtils.getMap();
+        return (map == null || map == LanguageUtils.ZombiesMap.NULL) ? -1 : HistoryRollups.mapIndex(map.ordinal());
+    }
+
+    // "n" or "n-m", within 1..MAX_ROUND
+    private static int[] parseRoundRange(String range) throws CommandException {
+        int dash = range.indexOf('-');
+        int from = parseInt(dash < 0 ? range : range.substring(0, dash), 1, HistoryRollups.MAX_ROUND);
+        int to = dash < 0 ? from : parseInt(range.substring(dash + 1), 1, HistoryRollups.MAX_ROUND);
+        if (from > to) {
+            throw new CommandException("Invalid round range '" + range + "'.");
+        }
+        return new int[]{from, to};
+    }
+
+    private static int parseMap(String arg) {
+        return parseMap(arg, true);
+    }
+
+    // Accepts the enum name, the sidebar name (spaces optional) or its initials: "aa", "alien_arcadium", "deadend", "de";
+    // with partial, also any 3+ character part of the sidebar name ("arc")
+    private static int parseMap(String arg, boolean partial) {
+        String wanted = normalize(arg);
+        if (wanted.isEmpty()) {
+            return -1;
+        }
+        for (LanguageUtils.ZombiesMap map : LanguageUtils.ZombiesMap.values()) {
+            if (map == LanguageUtils.ZombiesMap.NULL) {
+                continue;
+            }
+            String sidebarName = map.getSidebarName();
+            StringBuilder initials = new StringBuilder();
+            for (String word : sidebarName.split(" ")) {
+                if (!word.isEmpty()) {
+                    initials.append(Character.toLowerCase(word.charAt(0)));
+                }
+            }
+            if (wanted.equals(normalize(map.name())) || wanted.equals(normalize(sidebarName))
+                    || wanted.equals(initials.toString())
+                    || (partial && wanted.length() >= 3 && normalize(sidebarName).contains(wanted))) {
+                return HistoryRollups.mapIndex(map.ordinal());
+            }
+        }
+        return -1;
+    }
+
+    private static String normalize(String s) {
+        return s.toLowerCase().replace("_", "").replace(" ", "");
+    }
+
+    private static String mapName(int map) {
+        return map == 0 ? "Unknown map" : LanguageUtils.ZombiesMap.values()[map - 1].getSidebarName();
+    }
+
+    // /recap perf [on|off|reset]: handler latencies (p50/p99/max, bucket upper bounds) and counters
+    private static void sendPerf(ICommandSender sender, String[] args) throws CommandException {
+        PerfMetrics perf = YogurtRecapMod.getPerf();
+        if (args.length > 1) {
+            String action = args[1].toLowerCase();
+            if (action.equals("on") || action.equals("off")) {
+                PerfMetrics.setEnabled(action.equals("on"));
+            } else if (action.equals("reset")) {
+                perf.reset();
+            } else {
+                throw new CommandException("Use /recap perf [on|off|reset].");
+            }
+        }
+
+        sender.addChatMessage(new ChatComponentText(
+                EnumChatFormatting.YELLOW + "[YogurtRecap] " +
+                EnumChatFormatting.WHITE + "Perf metrics are " +
+                (PerfMetrics.isEnabled() ? EnumChatFormatting.GREEN + "enabled" : EnumChatFormatting.RED + "disabled") +
+                EnumChatFormatting.WHITE + "."
+        ));
+        for (PerfMetrics.Histogram histogram : perf.getHistograms()) {
+            long count = histogram.getCount();
+            if (count == 0L) {
+                continue;
+            }
+            sender.addChatMessage(new ChatComponentText(
+                    EnumChatFormatting.GRAY + histogram.getName() + ": " +
+                    EnumChatFormatting.WHITE + count + " calls" +
+                    EnumChatFormatting.GRAY + ", p50 " + EnumChatFormatting.WHITE + formatNanos(histogram.getQuantileNanos(0.5)) +
+                    EnumChatFormatting.GRAY + ", p99 " + EnumChatFormatting.WHITE + formatNanos(histogram.getQuantileNanos(0.99)) +
+                    EnumChatFormatting.GRAY + ", max " + EnumChatFormatting.WHITE + formatNanos(histogram.getMaxNanos())
+            ));
+        }
+        StringBuilder counters = new StringBuilder();
+        for (PerfMetrics.Counter counter : perf.getCounters()) {
+            counters.append(counters.length() == 0 ? "" : ", ").append(counter.getName()).append('=').append(counter.get());
         }
+        sender.addChatMessage(new ChatComponentText(EnumChatFormatting.GRAY + counters.toString()));
+    }
+
+    // /recap rates [seconds]: kills/gold per second over the live window (or the last seconds), peak bursts and the
+    // current wave's totals per player
+    private static void sendRates(ICommandSender sender, String[] args) throws CommandException {
+        PlayerRates rates = KillsGoldTracker.getRates();
+        if (rates.getPlayerCount() == 0) {
+            throw new CommandException("No Zombies game is being tracked.");
+        }
+        long windowMs = args.length > 1 ? parseInt(args[1], 1, MAX_RATE_WINDOW_SECONDS) * 1000L : PlayerRates.LIVE_WINDOW_MS;
+        long now = PlayerRates.now();
+        long wave = rates.getNextWave() - 1;
+        sender.addChatMessage(new ChatComponentText(
+                EnumChatFormatting.YELLOW + "[YogurtRecap] " +
+                EnumChatFormatting.WHITE + "Last " + windowMs / 1000 + "s rates (" + PlayerRates.LIVE_WINDOW_MS / 1000
+                + "s peak), " +
+                (wave >= 0 ? "round " + rates.getWaveRound(wave) + " wave " + rates.getWaveNumber(wave) : "no wave") +
+                " totals:"
+        ));
+        for (int slot = 0; slot < rates.getPlayerCount(); slot++) {
+            sender.addChatMessage(new ChatComponentText(
+                    EnumChatFormatting.GRAY + rates.getName(slot) + ": " +
+                    EnumChatFormatting.WHITE + String.format("%.1f", rate(rates, slot, PlayerRates.KILLS, now, windowMs)) + " kills/s" +
+                    EnumChatFormatting.GRAY + " (" + rates.getPeak(slot, PlayerRates.KILLS) + ") " +
+                    EnumChatFormatting.GOLD + String.format("%.1f", rate(rates, slot, PlayerRates.GOLD, now, windowMs)) + " gold/s" +
+                    EnumChatFormatting.GRAY + " (" + rates.getPeak(slot, PlayerRates.GOLD) + ")" +
+                    (wave >= 0 ? EnumChatFormatting.GRAY + " | " + EnumChatFormatting.WHITE
+                            + rates.getWaveTotal(wave, slot, PlayerRates.KILLS) + EnumChatFormatting.GRAY + "/"
+                            + EnumChatFormatting.GOLD + rates.getWaveTotal(wave, slot, PlayerRates.GOLD) : "")
+            ));
+        }
+    }
+
+    // Per second over windowMs; the live window is kept incrementally, any other window is a ring search.
+    private static double rate(PlayerRates rates, int slot, int stream, long now, long windowMs) {
+        if (windowMs == PlayerRates.LIVE_WINDOW_MS) {
+            return rates.getLiveRate(slot, stream, now);
+        }
+        return rates.getSumSince(slot, stream, now, windowMs) * 1000.0 / windowMs;
+    }
+
+    private static String formatNanos(long nanos) {
+        return nanos < 1_000_000L
+                ? String.format("%.1f\u00b5s", nanos / 1e3)
+                : String.format("%.2fms", nanos / 1e6);
     }
 }
 
@@ -1,6 +1,10 @@
 package com.yogurt.recap.commands;
 
-import com.yogurt.recap.features.killsgoldtracker.KillsGoldTracker;
+import com.yogurt.recap.YogurtRecapMod;
+import com.yogurt.recap.config.ModConfig;
+import com.yogurt.recap.handler.AllocationTracker;
+import com.yogurt.recap.handler.DebugLog;
+import com.yogurt.recap.handler.PersistenceWriter;
 import net.minecraft.command.CommandBase;
 import net.minecraft.command.CommandException;
 import net.minecraft.command.ICommandSender;
@@ -16,7 +20,7 @@ public class RecapDebugCommand extends CommandBase {
 
     @Override
     public String getCommandUsage(ICommandSender sender) {
-        return "/recapdebug <on|off>";
+        return "/recapdebug <on|off|level <trace|debug|info|warn|off>|dump|io|alloc [on|off|reset]>";
     }
 
     @Override
@@ -26,13 +30,14 @@ public class RecapDebugCommand extends CommandBase {
 
     @Override
     public void processCommand(ICommandSender sender, String[] args) throws CommandException {
+        DebugLog log = YogurtRecapMod.getDebugLog();
         if (args.length == 0) {
-            boolean enabled = KillsGoldTracker.isDebugEnabled();
+            boolean enabled = log.isChatEcho();
             sender.addChatMessage(new ChatComponentText(
                     EnumChatFormatting.YELLOW + "[YogurtRecap] " +
                     EnumChatFormatting.WHITE + "Debug mode is currently " +
                     (enabled ? EnumChatFormatting.GREEN + "enabled" : EnumChatFormatting.RED + "disabled") +
-                    EnumChatFormatting.WHITE + "."
+                    EnumChatFormatting.WHITE + " (log level " + log.getLevel() + ")."
             ));
             sender.addChatMessage(new ChatComponentText(
                     EnumChatFormatting.GRAY + "Use " + EnumChatFormatting.YELLOW + "/recapdebug on" +
@@ -44,20 +49,111 @@ public class RecapDebugCommand extends CommandBase {
 
         String arg = args[0].toLowerCase();
         if (arg.equals("on") || arg.equals("enable") || arg.equals("true")) {
-            KillsGoldTracker.setDebugEnabled(true);
+            // Debug mode: record DEBUG lines (unless already more verbose) and echo them to chat, rate-limited.
+            if (!log.isEnabled(DebugLog.Level.DEBUG)) {
+                log.setLevel(DebugLog.Level.DEBUG);
+            }
+            log.setChatEcho(true);
             sender.addChatMessage(new ChatComponentText(
                     EnumChatFormatting.YELLOW + "[YogurtRecap] " +
                     EnumChatFormatting.GREEN + "Debug mode enabled."
             ));
         } else if (arg.equals("off") || arg.equals("disable") || arg.equals("false")) {
-            KillsGoldTracker.setDebugEnabled(false);
+            log.setChatEcho(false);
+            log.setLevel(ModConfig.DEBUG_LOG_LEVEL);
             sender.addChatMessage(new ChatComponentText(
                     EnumChatFormatting.YELLOW + "[YogurtRecap] " +
                     EnumChatFormatting.RED + "Debug mode disabled."
             ));
+        } else if (arg.equals("level")) {
+            DebugLog.Level level = null;
+            for (DebugLog.Level candidate : DebugLog.Level.values()) {
+                if (args.length > 1 && candidate.name().equalsIgnoreCase(args[1])) {
+                    level = candidate;
+                }
+            }
+            if (level == null) {
+                throw new CommandException("Use /recapdebug level <trace|debug|info|warn|off>.");
+            }
+            log.setLevel(level);
+            sender.addChatMessage(new ChatComponentText(
+                    EnumChatFormatting.YELLOW + "[YogurtRecap] " +
+                    EnumChatFormatting.WHITE + "Debug log level set to " + level + "."
+            ));
+        } else if (arg.equals("dump")) {
+            if (!log.dump()) {
+                throw new CommandException("The disk writer is busy, try again in a moment.");
+            }
+        } else if (arg.equals("io")) {
+            PersistenceWriter writer = YogurtRecapMod.getPersistence();
+            sender.addChatMessage(new ChatComponentText(
+                    EnumChatFormatting.YELLOW + "[YogurtRecap] " +
+                    EnumChatFormatting.WHITE + "Writer queue=" + writer.getQueueDepth() +
+                    ", written=" + writer.getWritten() +
+                    ", dropped=" + writer.getDropped() +
+                    ", flushes=" + writer.getFlushCount() +
+                    String.format(", last flush=%.2fms, max flush=%.2fms",
+                            writer.getLastFlushNanos() / 1e6, writer.getMaxFlushNanos() / 1e6)
+            ));
+        } else if (arg.equals("alloc")) {
+            sendAllocations(sender, args);
         } else {
-            throw new CommandException("Invalid argument. Use 'on' or 'off'.");
+            throw new CommandException("Invalid argument. Use 'on', 'off', 'level <level>', 'dump', 'io' or 'alloc [on|off|reset]'.");
+        }
+    }
+
+    // /recapdebug alloc [on|off|reset]: bytes allocated per entry point this round / last round, and per-tick maxima
+    private static void sendAllocations(ICommandSender sender, String[] args) throws CommandException {
+        AllocationTracker tracker = YogurtRecapMod.getAllocations();
+        if (args.length > 1) {
+            String action = args[1].toLowerCase();
+            if (action.equals("on") || action.equals("off")) {
+                if (!AllocationTracker.setEnabled(action.equals("on"))) {
+                    throw new CommandException("This JVM can't account allocations per thread.");
+                }
+            } else if (action.equals("reset")) {
+                tracker.reset();
+            } else {
+                throw new CommandException("Use /recapdebug alloc [on|off|reset].");
+            }
+        }
+
+        sender.addChatMessage(new ChatComponentText(
+                EnumChatFormatting.YELLOW + "[YogurtRecap] " +
+                EnumChatFormatting.WHITE + "Allocation tracking is " +
+                (AllocationTracker.isEnabled() ? EnumChatFormatting.GREEN + "enabled" : EnumChatFormatting.RED + "disabled") +
+                EnumChatFormatting.WHITE + ". Round " + tracker.getRound() + " / last round " + tracker.getLastRound() + ":"
+        ));
+        for (AllocationTracker.Site site : tracker.getSites()) {
+            if (site.getCalls() == 0L) {
+                continue;
+            }
+            sender.addChatMessage(new ChatComponentText(
+                    EnumChatFormatting.GRAY + site.getName() + ": " +
+                    EnumChatFormatting.WHITE + formatBytes(site.getRoundBytes()) +
+                    EnumChatFormatting.GRAY + " / " + EnumChatFormatting.WHITE + formatBytes(site.getLastRoundBytes()) +
+                    EnumChatFormatting.GRAY + ", max call " + EnumChatFormatting.WHITE + formatBytes(site.getMaxCallBytes()) +
+                    EnumChatFormatting.GRAY + ", " + site.getCalls() + " calls, " + formatBytes(site.getTotalBytes()) + " total"
+            ));
+        }
+        sender.addChatMessage(new ChatComponentText(
+                EnumChatFormatting.GRAY + "Max per tick (client thread): " +
+                EnumChatFormatting.WHITE + formatBytes(tracker.getRoundMaxTickBytes()) +
+                EnumChatFormatting.GRAY + " this round, " +
+                EnumChatFormatting.WHITE + formatBytes(tracker.getLastRoundMaxTickBytes()) +
+                EnumChatFormatting.GRAY + " last round, " +
+                EnumChatFormatting.WHITE + formatBytes(tracker.getMaxTickBytes()) +
+                EnumChatFormatting.GRAY + " overall"
+        ));
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024L) {
+            return bytes + "B";
         }
+        return bytes < 1024L * 1024L
+                ? String.format("%.1fKB", bytes / 1024.0)
+                : String.format("%.2fMB", bytes / (1024.0 * 1024.0));
     }
 }
 
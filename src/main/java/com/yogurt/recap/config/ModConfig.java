@@ -1,12 +1,27 @@
 package com.yogurt.recap.config;
 
+import com.yogurt.recap.YogurtRecapMod;
+import com.yogurt.recap.handler.DebugLog;
 import net.minecraftforge.common.config.Configuration;
 
+import java.util.Locale;
+
 public final class ModConfig {
     private ModConfig() {}
 
     public static boolean KILLS_GOLD_TRACKER_ENABLED = true;
     public static boolean KILLS_GOLD_TRACKER_DEBUG = false;
+    public static int KILLS_GOLD_SETTLE_TICKS = 5;
+    public static int KILLS_GOLD_SETTLE_MAX_TICKS = 40;
+    public static DebugLog.Level DEBUG_LOG_LEVEL = DebugLog.Level.INFO;
+    public static int DEBUG_CHAT_LINES_PER_SECOND = 4;
+    public static int PERSISTENCE_FLUSH_BATCH = 64;
+    public static int PERSISTENCE_FLUSH_INTERVAL_MS = 5000;
+    public static boolean PERF_METRICS_ENABLED = false;
+    public static int PERF_METRICS_SNAPSHOT_SECONDS = 0;
+    private static final int MAX_PERF_METRICS_SNAPSHOT_SECONDS = 86400; // one day
+    public static int PERF_METRICS_FILE_MAX_KB = 1024;
+    public static boolean ALLOCATION_TRACKING = false;
 
     public static void load(Configuration cfg) {
         try {
@@ -19,12 +34,63 @@ public final class ModConfig {
                     "Kills and Gold Tracking Debug", false,
                     "Debug logging for Kills and Gold Tracking (prints debug lines in chat).")
                     .getBoolean(false);
+            KILLS_GOLD_SETTLE_TICKS = cfg.get(Configuration.CATEGORY_GENERAL,
+                    "Kills and Gold Settle Ticks", 5,
+                    "After a round title, take the round snapshot once the players' sidebar gold and tablist kills have not changed for this many ticks.")
+                    .getInt(5);
+            KILLS_GOLD_SETTLE_MAX_TICKS = cfg.get(Configuration.CATEGORY_GENERAL,
+                    "Kills and Gold Settle Max Ticks", 40,
+                    "Take the round snapshot at the latest this many ticks after the round title, even if values are still changing.")
+                    .getInt(40);
+            DEBUG_LOG_LEVEL = parseLevel(cfg.get(Configuration.CATEGORY_GENERAL,
+                    "Debug Log Level", "INFO",
+                    "Lowest level kept in the in-memory debug log written by /recapdebug dump (TRACE, DEBUG, INFO, WARN or OFF).")
+                    .getString());
+            DEBUG_CHAT_LINES_PER_SECOND = cfg.get(Configuration.CATEGORY_GENERAL,
+                    "Debug Chat Lines Per Second", 4,
+                    "Maximum debug lines echoed to chat per second while debug mode is on; the rest only go to the log.")
+                    .getInt(4);
+            PERSISTENCE_FLUSH_BATCH = cfg.get(Configuration.CATEGORY_GENERAL,
+                    "Persistence Flush Batch", 64,
+                    "Number of queued disk writes (history records, config saves) that triggers a flush.")
+                    .getInt(64);
+            PERSISTENCE_FLUSH_INTERVAL_MS = cfg.get(Configuration.CATEGORY_GENERAL,
+                    "Persistence Flush Interval Ms", 5000,
+                    "Maximum time in milliseconds a queued disk write waits before being flushed.")
+                    .getInt(5000);
+            PERF_METRICS_ENABLED = cfg.get(Configuration.CATEGORY_GENERAL,
+                    "Perf Metrics", false,
+                    "Record handler latencies and counters (see /recap perf). Can also be toggled with /recap perf on|off.")
+                    .getBoolean(false);
+            // Bounded here: the scheduler takes ticks (seconds * 20), which must not overflow.
+            PERF_METRICS_SNAPSHOT_SECONDS = Math.max(0, Math.min(MAX_PERF_METRICS_SNAPSHOT_SECONDS,
+                    cfg.get(Configuration.CATEGORY_GENERAL,
+                    "Perf Metrics Snapshot Seconds", 0,
+                    "Append an OpenMetrics snapshot to config/yogurtrecap/metrics/perf.txt this often while perf metrics are on (0 = never, at most 86400).")
+                    .getInt(0)));
+            PERF_METRICS_FILE_MAX_KB = cfg.get(Configuration.CATEGORY_GENERAL,
+                    "Perf Metrics File Max KB", 1024,
+                    "Size at which perf.txt is rolled over to perf.1.txt (the previous perf.1.txt is discarded).")
+                    .getInt(1024);
+            ALLOCATION_TRACKING = cfg.get(Configuration.CATEGORY_GENERAL,
+                    "Allocation Tracking", false,
+                    "Account heap allocations per mod entry point (see /recapdebug alloc). Adds a small cost to every tick.")
+                    .getBoolean(false);
         } finally {
             if (cfg.hasChanged()) {
-                cfg.save();
+                // Saved on the background writer so a config write never stalls the client thread.
+                YogurtRecapMod.getPersistence().submit(cfg::save);
             }
         }
     }
+
+    private static DebugLog.Level parseLevel(String value) {
+        try {
+            return DebugLog.Level.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return DebugLog.Level.INFO;
+        }
+    }
 }
 
 
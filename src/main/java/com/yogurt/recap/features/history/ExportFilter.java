@@ -0,0 +1,19 @@
+package com.yogurt.recap.features.history;
+
+/**
+ * Which records {@link HistoryExporter} writes. Unset fields match everything.
+ */
+public final class ExportFilter {
+    public int map = -1;          // rollup map index (see HistoryRollups#mapIndex), -1 for any
+    public String player;         // case-insensitive username, null for any
+    public int fromRound = 1;
+    public int toRound = Integer.MAX_VALUE;
+
+    boolean matchesMap(int recordMap) {
+        return map < 0 || HistoryRollups.mapIndex(recordMap) == map;
+    }
+
+    boolean matchesRound(int round) {
+        return round >= fromRound && round <= toRound;
+    }
+}
@@ -0,0 +1,276 @@
+package com.yogurt.recap.features.history;
+
+import com.yogurt.recap.YogurtRecapMod;
+import com.yogurt.recap.utils.LanguageUtils;
+import com.yogurt.recap.utils.PlayerUtils;
+import net.minecraft.client.Minecraft;
+import net.minecraft.util.EnumChatFormatting;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Streams the recorded rounds to a CSV or JSON file under {@code config/yogurtrecap/exports}, on its own thread.
+ *
+ * The history files are mapped read-only (a separate view, so the persistence writer keeps appending meanwhile) and
+ * rows are encoded straight from the mapping into one fixed-size direct buffer that is drained to a
+ * {@link FileChannel}; memory use doesn't depend on the history size. Whole games are skipped through
+ * {@code games.idx} when filtering by map. Progress and the result are posted to chat on the client thread.
+ */
+public final class HistoryExporter implements Runnable {
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final int MAX_ROW_BYTES = 512;
+    private static final long PROGRESS_INTERVAL_MS = 1000L;
+    private static final AtomicBoolean RUNNING = new AtomicBoolean();
+
+    private static final String CSV_HEADER =
+            "game_id,map,round,player,kills,gold,last_wave_kills,last_wave_gold,has_last_wave,duration_ms\n";
+
+    public enum Format {
+        CSV, JSON
+    }
+
+    private final File historyDir;
+    private final Format format;
+    private final ExportFilter filter;
+    private final byte[][] mapNames = new byte[HistoryRollups.MAPS][];
+    private final byte[] playerFilter;
+
+    private HistoryExporter(File historyDir, Format format, ExportFilter filter) {
+        this.historyDir = historyDir;
+        this.format = format;
+        this.filter = filter;
+        for (int map = 0; map < HistoryRollups.MAPS; map++) {
+            String name = map == 0 ? "Unknown" : LanguageUtils.ZombiesMap.values()[map - 1].getSidebarName();
+            mapNames[map] = name.getBytes(StandardCharsets.US_ASCII);
+        }
+        this.playerFilter = filter.player == null ? null : filter.player.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Starts an export in the background. Returns {@code false} if one is already running.
+     */
+    public static boolean start(File historyDir, Format format, ExportFilter filter) {
+        if (!RUNNING.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread thread = new Thread(new HistoryExporter(historyDir, format, filter), YogurtRecapMod.NAME + " export");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+        return true;
+    }
+
+    @Override
+    public void run() {
+        File exportDir = new File(historyDir.getParentFile(), "exports");
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        File target = new File(exportDir, "history-" + stamp + (format == Format.CSV ? ".csv" : ".json"));
+        try {
+            if (!exportDir.isDirectory() && !exportDir.mkdirs()) {
+                throw new IOException("Cannot create " + exportDir);
+            }
+            long rows = export(target);
+            post(EnumChatFormatting.GREEN + "Exported " + rows + " rows to " + EnumChatFormatting.WHITE + target.getPath());
+        } catch (IOException | RuntimeException e) {
+            YogurtRecapMod.getLogger().error("History export failed", e);
+            post(EnumChatFormatting.RED + "Export failed: " + e.getMessage());
+        } finally {
+            RUNNING.set(false);
+        }
+    }
+
+    private long export(File target) throws IOException {
+        try (FileChannel roundsChannel = FileChannel.open(new File(historyDir, "rounds.dat").toPath(), StandardOpenOption.READ);
+             FileChannel indexChannel = FileChannel.open(new File(historyDir, "games.idx").toPath(), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer records = roundsChannel.map(FileChannel.MapMode.READ_ONLY, 0, roundsChannel.size());
+            MappedByteBuffer games = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, indexChannel.size());
+            long recordCount = readCount(records, HistoryStore.ROUNDS_MAGIC);
+            long gameCount = readCount(games, HistoryStore.INDEX_MAGIC);
+            recordCount = Math.min(recordCount, (records.capacity() - HistoryStore.HEADER_BYTES) / HistoryStore.RECORD_BYTES);
+            gameCount = Math.min(gameCount, (games.capacity() - HistoryStore.HEADER_BYTES) / HistoryStore.GAME_BYTES);
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+            putAscii(buffer, format == Format.CSV ? CSV_HEADER : "[");
+
+            long rows = 0;
+            long scanned = 0;
+            long nextProgress = System.currentTimeMillis() + PROGRESS_INTERVAL_MS;
+            for (int game = 0; game < gameCount; game++) {
+                int gameBase = HistoryStore.HEADER_BYTES + game * HistoryStore.GAME_BYTES;
+                long first = games.getLong(gameBase + HistoryStore.G_FIRST_RECORD);
+                long end = Math.min(first + games.getInt(gameBase + HistoryStore.G_RECORD_COUNT), recordCount);
+                int gameMap = games.getInt(gameBase + HistoryStore.G_MAP);
+                if (filter.matchesMap(gameMap)) {
+                    for (long record = first; record < end; record++) {
+                        int base = (int) (HistoryStore.HEADER_BYTES + record * HistoryStore.RECORD_BYTES);
+                        if (!filter.matchesRound(records.getInt(base + HistoryStore.R_ROUND))
+                                || !matchesPlayer(records, base + HistoryStore.R_PLAYER)) {
+                            continue;
+                        }
+                        if (buffer.remaining() < MAX_ROW_BYTES) {
+                            drain(buffer, out);
+                        }
+                        writeRow(buffer, records, base, HistoryRollups.mapIndex(gameMap), rows == 0);
+                        rows++;
+                    }
+                }
+                scanned = Math.max(scanned, end);
+
+                long now = System.currentTimeMillis();
+                if (now >= nextProgress) {
+                    nextProgress = now + PROGRESS_INTERVAL_MS;
+                    post(EnumChatFormatting.GRAY + "Exporting... " + (recordCount == 0 ? 100 : scanned * 100 / recordCount)
+                            + "% (" + rows + " rows)");
+                }
+            }
+
+            if (format == Format.JSON) {
+                putAscii(buffer, rows == 0 ? "]\n" : "\n]\n");
+            }
+            drain(buffer, out);
+            return rows;
+        }
+    }
+
+    private void writeRow(ByteBuffer buffer, MappedByteBuffer records, int base, int map, boolean firstRow) {
+        long gameId = records.getLong(base + HistoryStore.R_GAME_ID);
+        int round = records.getInt(base + HistoryStore.R_ROUND);
+        int kills = records.getInt(base + HistoryStore.R_KILLS);
+        int gold = records.getInt(base + HistoryStore.R_GOLD);
+        int lastWaveKills = records.getInt(base + HistoryStore.R_LAST_WAVE_KILLS);
+        int lastWaveGold = records.getInt(base + HistoryStore.R_LAST_WAVE_GOLD);
+        boolean hasLastWave = (records.getInt(base + HistoryStore.R_FLAGS) & RoundRecord.FLAG_HAS_LAST_WAVE) != 0;
+        int durationMs = records.getInt(base + HistoryStore.R_DURATION);
+
+        if (format == Format.CSV) {
+            putLong(buffer, gameId);
+            buffer.put((byte) ',');
+            buffer.put(mapNames[map]);
+            buffer.put((byte) ',');
+            putLong(buffer, round);
+            buffer.put((byte) ',');
+            putName(buffer, records, base + HistoryStore.R_PLAYER);
+            buffer.put((byte) ',');
+            putLong(buffer, kills);
+            buffer.put((byte) ',');
+            putLong(buffer, gold);
+            buffer.put((byte) ',');
+            putLong(buffer, lastWaveKills);
+            buffer.put((byte) ',');
+            putLong(buffer, lastWaveGold);
+            buffer.put((byte) ',');
+            putAscii(buffer, hasLastWave ? "true" : "false");
+            buffer.put((byte) ',');
+            putLong(buffer, durationMs);
+            buffer.put((byte) '\n');
+            return;
+        }
+
+        putAscii(buffer, firstRow ? "\n{\"game_id\":" : ",\n{\"game_id\":");
+        putLong(buffer, gameId);
+        putAscii(buffer, ",\"map\":\"");
+        buffer.put(mapNames[map]);
+        putAscii(buffer, "\",\"round\":");
+        putLong(buffer, round);
+        putAscii(buffer, ",\"player\":\"");
+        putName(buffer, records, base + HistoryStore.R_PLAYER);
+        putAscii(buffer, "\",\"kills\":");
+        putLong(buffer, kills);
+        putAscii(buffer, ",\"gold\":");
+        putLong(buffer, gold);
+        putAscii(buffer, ",\"last_wave_kills\":");
+        putLong(buffer, lastWaveKills);
+        putAscii(buffer, ",\"last_wave_gold\":");
+        putLong(buffer, lastWaveGold);
+        putAscii(buffer, ",\"has_last_wave\":");
+        putAscii(buffer, hasLastWave ? "true" : "false");
+        putAscii(buffer, ",\"duration_ms\":");
+        putLong(buffer, durationMs);
+        buffer.put((byte) '}');
+    }
+
+    private boolean matchesPlayer(MappedByteBuffer records, int offset) {
+        if (playerFilter == null) {
+            return true;
+        }
+        for (int i = 0; i < RoundRecord.NAME_LENGTH; i++) {
+            byte b = records.get(offset + i);
+            if (i == playerFilter.length) {
+                return b == 0;
+            }
+            if (Character.toLowerCase((char) b) != playerFilter[i]) {
+                return false;
+            }
+        }
+        return playerFilter.length == RoundRecord.NAME_LENGTH;
+    }
+
+    // Usernames are [A-Za-z0-9_]; anything else is escaped-away so neither CSV nor JSON can break.
+    private static void putName(ByteBuffer buffer, MappedByteBuffer records, int offset) {
+        for (int i = 0; i < RoundRecord.NAME_LENGTH; i++) {
+            byte b = records.get(offset + i);
+            if (b == 0) {
+                return;
+            }
+            boolean safe = (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '_';
+            buffer.put(safe ? b : (byte) '?');
+        }
+    }
+
+    private static void putAscii(ByteBuffer buffer, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            buffer.put((byte) s.charAt(i));
+        }
+    }
+
+    private static void putLong(ByteBuffer buffer, long value) {
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        long divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            buffer.put((byte) ('0' + (value / divisor) % 10));
+        }
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel out) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static long readCount(MappedByteBuffer buffer, int magic) throws IOException {
+        if (buffer.capacity() < HistoryStore.HEADER_BYTES) {
+            return 0L;
+        }
+        if (buffer.getInt(0) != magic || buffer.getInt(4) != HistoryStore.VERSION) {
+            throw new IOException("Unrecognised history file header");
+        }
+        return buffer.getLong(HistoryStore.COUNT_OFFSET);
+    }
+
+    private static void post(String message) {
+        Minecraft mc = Minecraft.getMinecraft();
+        if (mc != null) {
+            mc.addScheduledTask(() -> PlayerUtils.sendMessage(EnumChatFormatting.YELLOW + "[YogurtRecap] " + message));
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.yogurt.recap.features.history;
+
+import com.yogurt.recap.utils.LanguageUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Per-map, per-round aggregates over every recorded round: count, mean and variance (Welford) of kills and gold,
+ * plus the best single-player kills / gold and who got them.
+ *
+ * Updated incrementally as each record is appended, so queries never rescan history. Columns are flat arrays
+ * indexed by {@code bucket(map, round)}; map index 0 holds rounds whose map wasn't detected.
+ * {@link #watermark} is the number of history records folded in, so a persisted copy can be caught up on load.
+ */
+public final class HistoryRollups {
+    private static final int MAGIC = 0x59525255; // "YRRU"
+    private static final int VERSION = 1;
+
+    /** Rounds above this still count towards {@link #getBestRound(int)} but aren't aggregated per round. */
+    public static final int MAX_ROUND = 127;
+    public static final int MAPS = LanguageUtils.ZombiesMap.values().length + 1;
+    private static final int BUCKETS = MAPS * (MAX_ROUND + 1);
+
+    private final int[] count = new int[BUCKETS];
+    private final double[] killsMean = new double[BUCKETS];
+    private final double[] killsM2 = new double[BUCKETS];
+    private final double[] goldMean = new double[BUCKETS];
+    private final double[] goldM2 = new double[BUCKETS];
+    private final int[] bestKills = new int[BUCKETS];
+    private final int[] bestGold = new int[BUCKETS];
+    private final String[] bestKillsPlayer = new String[BUCKETS];
+    private final String[] bestGoldPlayer = new String[BUCKETS];
+
+    private final int[] games = new int[MAPS];
+    private final int[] bestRound = new int[MAPS];
+
+    private long watermark;
+    private long lastGameId = Long.MIN_VALUE;
+    private int lastGameMap = -1;
+
+    /**
+     * Maps a {@link RoundRecord#map} value (ZombiesMap ordinal or -1) to a rollup map index.
+     */
+    public static int mapIndex(int recordMap) {
+        return recordMap >= 0 && recordMap + 1 < MAPS ? recordMap + 1 : 0;
+    }
+
+    void add(RoundRecord record) {
+        int map = mapIndex(record.map);
+        if (record.gameId != lastGameId) {
+            lastGameId = record.gameId;
+            lastGameMap = map;
+            games[map]++;
+        } else if (lastGameMap == 0 && map != 0) {
+            // Map was detected after the game's first round: move the game over.
+            games[0]--;
+            games[map]++;
+            lastGameMap = map;
+        }
+        bestRound[map] = Math.max(bestRound[map], record.round);
+        watermark++;
+
+        if (record.round < 1 || record.round > MAX_ROUND) {
+            return;
+        }
+        int b = bucket(map, record.round);
+        int n = ++count[b];
+        double delta = record.kills - killsMean[b];
+        killsMean[b] += delta / n;
+        killsM2[b] += delta * (record.kills - killsMean[b]);
+        delta = record.gold - goldMean[b];
+        goldMean[b] += delta / n;
+        goldM2[b] += delta * (record.gold - goldMean[b]);
+        if (n == 1 || record.kills > bestKills[b]) {
+            bestKills[b] = record.kills;
+            bestKillsPlayer[b] = record.player;
+        }
+        if (n == 1 || record.gold > bestGold[b]) {
+            bestGold[b] = record.gold;
+            bestGoldPlayer[b] = record.player;
+        }
+    }
+
+    long getWatermark() {
+        return watermark;
+    }
+
+    public int getCount(int map, int round) {
+        return inRange(round) ? count[bucket(map, round)] : 0;
+    }
+
+    public double getKillsMean(int map, int round) {
+        return inRange(round) ? killsMean[bucket(map, round)] : 0;
+    }
+
+    public double getKillsStdDev(int map, int round) {
+        return inRange(round) ? stdDev(killsM2[bucket(map, round)], count[bucket(map, round)]) : 0;
+    }
+
+    public double getGoldMean(int map, int round) {
+        return inRange(round) ? goldMean[bucket(map, round)] : 0;
+    }
+
+    public double getGoldStdDev(int map, int round) {
+        return inRange(round) ? stdDev(goldM2[bucket(map, round)], count[bucket(map, round)]) : 0;
+    }
+
+    public int getBestKills(int map, int round) {
+        return inRange(round) ? bestKills[bucket(map, round)] : 0;
+    }
+
+    public String getBestKillsPlayer(int map, int round) {
+        return inRange(round) ? bestKillsPlayer[bucket(map, round)] : null;
+    }
+
+    public int getBestGold(int map, int round) {
+        return inRange(round) ? bestGold[bucket(map, round)] : 0;
+    }
+
+    public String getBestGoldPlayer(int map, int round) {
+        return inRange(round) ? bestGoldPlayer[bucket(map, round)] : null;
+    }
+
+    public int getGames(int map) {
+        return games[map];
+    }
+
+    public int getBestRound(int map) {
+        return bestRound[map];
+    }
+
+    HistoryRollups copy() {
+        HistoryRollups copy = new HistoryRollups();
+        System.arraycopy(count, 0, copy.count, 0, BUCKETS);
+        System.arraycopy(killsMean, 0, copy.killsMean, 0, BUCKETS);
+        System.arraycopy(killsM2, 0, copy.killsM2, 0, BUCKETS);
+        System.arraycopy(goldMean, 0, copy.goldMean, 0, BUCKETS);
+        System.arraycopy(goldM2, 0, copy.goldM2, 0, BUCKETS);
+        System.arraycopy(bestKills, 0, copy.bestKills, 0, BUCKETS);
+        System.arraycopy(bestGold, 0, copy.bestGold, 0, BUCKETS);
+        System.arraycopy(bestKillsPlayer, 0, copy.bestKillsPlayer, 0, BUCKETS);
+        System.arraycopy(bestGoldPlayer, 0, copy.bestGoldPlayer, 0, BUCKETS);
+        System.arraycopy(games, 0, copy.games, 0, MAPS);
+        System.arraycopy(bestRound, 0, copy.bestRound, 0, MAPS);
+        copy.watermark = watermark;
+        copy.lastGameId = lastGameId;
+        copy.lastGameMap = lastGameMap;
+        return copy;
+    }
+
+    /**
+     * Writes the rollups next to the history (via a temp file, so a crash never leaves a half-written copy).
+     */
+    void save(File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(MAPS);
+            out.writeInt(MAX_ROUND);
+            out.writeLong(watermark);
+            out.writeLong(lastGameId);
+            out.writeInt(lastGameMap);
+            for (int map = 0; map < MAPS; map++) {
+                out.writeInt(games[map]);
+                out.writeInt(bestRound[map]);
+            }
+            for (int b = 0; b < BUCKETS; b++) {
+                out.writeInt(count[b]);
+                if (count[b] == 0) {
+                    continue;
+                }
+                out.writeDouble(killsMean[b]);
+                out.writeDouble(killsM2[b]);
+                out.writeDouble(goldMean[b]);
+                out.writeDouble(goldM2[b]);
+                out.writeInt(bestKills[b]);
+                out.writeUTF(bestKillsPlayer[b] == null ? "" : bestKillsPlayer[b]);
+                out.writeInt(bestGold[b]);
+                out.writeUTF(bestGoldPlayer[b] == null ? "" : bestGoldPlayer[b]);
+            }
+        }
+        if (file.exists() && !file.delete() || !temp.renameTo(file)) {
+            throw new IOException("Cannot replace " + file);
+        }
+    }
+
+    /**
+     * Reads a copy written by {@link #save(File)}; returns {@code null} if there is none or it's from another layout.
+     */
+    static HistoryRollups load(File file) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != MAPS || in.readInt() != MAX_ROUND) {
+                return null;
+            }
+            HistoryRollups rollups = new HistoryRollups();
+            rollups.watermark = in.readLong();
+            rollups.lastGameId = in.readLong();
+            rollups.lastGameMap = in.readInt();
+            for (int map = 0; map < MAPS; map++) {
+                rollups.games[map] = in.readInt();
+                rollups.bestRound[map] = in.readInt();
+            }
+            for (int b = 0; b < BUCKETS; b++) {
+                rollups.count[b] = in.readInt();
+                if (rollups.count[b] == 0) {
+                    continue;
+                }
+                rollups.killsMean[b] = in.readDouble();
+                rollups.killsM2[b] = in.readDouble();
+                rollups.goldMean[b] = in.readDouble();
+                rollups.goldM2[b] = in.readDouble();
+                rollups.bestKills[b] = in.readInt();
+                rollups.bestKillsPlayer[b] = in.readUTF();
+                rollups.bestGold[b] = in.readInt();
+                rollups.bestGoldPlayer[b] = in.readUTF();
+            }
+            return rollups;
+        }
+    }
+
+    private static boolean inRange(int round) {
+        return round >= 1 && round <= MAX_ROUND;
+    }
+
+    private static int bucket(int map, int round) {
+        return map * (MAX_ROUND + 1) + round;
+    }
+
+    private static double stdDev(double m2, int n) {
+        return n > 1 ? Math.sqrt(m2 / (n - 1)) : 0;
+    }
+}
@@ -0,0 +1,307 @@
+package com.yogurt.recap.features.history;
+
+import com.yogurt.recap.YogurtRecapMod;
+
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+
+/**
+ * Append-only game history under {@code config/yogurtrecap/history}.
+ *
+ * {@code rounds.dat} holds fixed-width {@link RoundRecord}s (one per player per round) and {@code games.idx} holds
+ * one fixed-width entry per game pointing at its contiguous run of records, so queries can seek straight to a game
+ * (or skip it by map) without reading every record. Both files are written through a {@link MappedByteBuffer}:
+ * appending is a handful of buffer puts plus a header count update, which is the commit point - a record past the
+ * stored count (torn write on crash) is simply ignored on the next open.
+ *
+ * Every append also folds the record into {@link HistoryRollups}, persisted as {@code rollups.dat} on flush and
+ * caught up from its watermark on open, so aggregate queries never rescan the records. The snapshot other threads
+ * read is republished once per flush.
+ *
+ * Not thread-safe: the store is owned by the {@link com.yogurt.recap.handler.PersistenceWriter} thread (including
+ * {@link #open(File)}), and all appends / reads must be submitted there. {@link #flush()} forces the mappings to
+ * disk. The only exception is {@link #getRollups()}, an immutable snapshot that any thread may read.
+ */
+public class HistoryStore implements Flushable {
+    static final int ROUNDS_MAGIC = 0x59525248; // "YRRH"
+    static final int INDEX_MAGIC = 0x59524749;  // "YRGI"
+    static final int VERSION = 1;
+
+    static final int HEADER_BYTES = 16;  // magic, version, count (long)
+    static final int COUNT_OFFSET = 8;
+
+    // rounds.dat record layout
+    static final int RECORD_BYTES = 64;
+    static final int R_GAME_ID = 0;
+    static final int R_MAP = 8;
+    static final int R_ROUND = 12;
+    static final int R_PLAYER = 16;      // RoundRecord.NAME_LENGTH ASCII bytes, zero-padded
+    static final int R_KILLS = 32;
+    static final int R_GOLD = 36;
+    static final int R_LAST_WAVE_KILLS = 40;
+    static final int R_LAST_WAVE_GOLD = 44;
+    static final int R_DURATION = 48;
+    static final int R_FLAGS = 52;
+
+    // games.idx entry layout
+    static final int GAME_BYTES = 32;
+    static final int G_GAME_ID = 0;
+    static final int G_MAP = 8;
+    static final int G_MAX_ROUND = 12;
+    static final int G_FIRST_RECORD = 16;
+    static final int G_RECORD_COUNT = 24;
+
+    private volatile File directory;
+    private MappedFile rounds;
+    private MappedFile index;
+    private long recordCount;
+    private int gameCount;
+
+    private File rollupsFile;
+    private HistoryRollups rollups = new HistoryRollups();
+    private boolean rollupsDirty;
+    private boolean publishPending; // appended since the last published snapshot
+    private volatile HistoryRollups published = new HistoryRollups();
+
+    /**
+     * Opens (or creates) the store. On failure the store stays closed and every append is a no-op.
+     */
+    public void open(File configDir) {
+        File dir = new File(configDir, YogurtRecapMod.MODID + File.separator + "history");
+        directory = dir;
+        try {
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Cannot create " + dir);
+            }
+            rounds = new MappedFile(new File(dir, "rounds.dat"));
+            index = new MappedFile(new File(dir, "games.idx"));
+            recordCount = readHeader(rounds.buffer(), ROUNDS_MAGIC);
+            gameCount = (int) readHeader(index.buffer(), INDEX_MAGIC);
+            recordCount = Math.min(recordCount, (rounds.buffer().capacity() - HEADER_BYTES) / RECORD_BYTES);
+            gameCount = Math.min(gameCount, (index.buffer().capacity() - HEADER_BYTES) / GAME_BYTES);
+            loadRollups(new File(dir, "rollups.dat"));
+        } catch (IOException | RuntimeException e) {
+            YogurtRecapMod.getLogger().error("Could not open round history in " + dir + ", history disabled", e);
+            rounds = null;
+            index = null;
+        }
+    }
+
+    /**
+     * Directory holding the history files, or {@code null} before {@link #open(File)} ran. Safe from any thread.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    public boolean isOpen() {
+        return rounds != null;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public int getGameCount() {
+        return gameCount;
+    }
+
+    /**
+     * Appends one round record. Records of a game must be appended contiguously; a new {@code gameId} starts a new
+     * index entry.
+     */
+    public void append(RoundRecord record) {
+        if (!isOpen()) {
+            return;
+        }
+        try {
+            MappedByteBuffer data = rounds.ensureCapacity(HEADER_BYTES + (recordCount + 1) * RECORD_BYTES);
+            int base = (int) (HEADER_BYTES + recordCount * RECORD_BYTES);
+            data.putLong(base + R_GAME_ID, record.gameId);
+            data.putInt(base + R_MAP, record.map);
+            data.putInt(base + R_ROUND, record.round);
+            putName(data, base + R_PLAYER, record.player);
+            data.putInt(base + R_KILLS, record.kills);
+            data.putInt(base + R_GOLD, record.gold);
+            data.putInt(base + R_LAST_WAVE_KILLS, record.lastWaveKills);
+            data.putInt(base + R_LAST_WAVE_GOLD, record.lastWaveGold);
+            data.putInt(base + R_DURATION, record.durationMs);
+            data.putInt(base + R_FLAGS, record.flags);
+            data.putLong(COUNT_OFFSET, recordCount + 1); // commit
+            recordCount++;
+
+            indexRecord(record, recordCount - 1);
+
+            rollups.add(record);
+            rollupsDirty = true;
+            publishPending = true;
+        } catch (IOException | RuntimeException e) {
+            YogurtRecapMod.getLogger().error("Could not append round history, history disabled", e);
+            close();
+        }
+    }
+
+    private void loadRollups(File file) {
+        rollupsFile = file;
+        try {
+            HistoryRollups loaded = HistoryRollups.load(file);
+            if (loaded != null && loaded.getWatermark() <= recordCount) {
+                rollups = loaded;
+            }
+        } catch (IOException e) {
+            YogurtRecapMod.getLogger().warn("Could not read " + file + ", rebuilding history rollups", e);
+        }
+        // Fold in whatever was appended after the rollups were last saved (everything on first run).
+        RoundRecord record = new RoundRecord();
+        for (long i = rollups.getWatermark(); i < recordCount; i++) {
+            rollups.add(read(i, record));
+            rollupsDirty = true;
+        }
+        published = rollups.copy();
+    }
+
+    /**
+     * Aggregates as of the last flush (a write batch appends a whole game at once, so the snapshot is copied once
+     * per batch rather than per record). Safe to call from any thread; never blocks.
+     */
+    public HistoryRollups getRollups() {
+        return published;
+    }
+
+    private void indexRecord(RoundRecord record, long recordNumber) throws IOException {
+        MappedByteBuffer games = index.buffer();
+        int last = gameCount - 1;
+        if (last < 0 || games.getLong(gameOffset(last) + G_GAME_ID) != record.gameId) {
+            games = index.ensureCapacity(HEADER_BYTES + (long) (gameCount + 1) * GAME_BYTES);
+            int base = gameOffset(gameCount);
+            games.putLong(base + G_GAME_ID, record.gameId);
+            games.putInt(base + G_MAP, record.map);
+            games.putInt(base + G_MAX_ROUND, record.round);
+            games.putLong(base + G_FIRST_RECORD, recordNumber);
+            games.putInt(base + G_RECORD_COUNT, 1);
+            games.putLong(COUNT_OFFSET, gameCount + 1); // commit
+            gameCount++;
+            return;
+        }
+        int base = gameOffset(last);
+        games.putInt(base + G_RECORD_COUNT, games.getInt(base + G_RECORD_COUNT) + 1);
+        if (record.round > games.getInt(base + G_MAX_ROUND)) {
+            games.putInt(base + G_MAX_ROUND, record.round);
+        }
+        if (games.getInt(base + G_MAP) < 0 && record.map >= 0) {
+            games.putInt(base + G_MAP, record.map); // map detected after the first round was stored
+        }
+    }
+
+    /**
+     * Reads record {@code recordNumber} (0-based, below {@link #getRecordCount()}) into {@code into}.
+     */
+    public RoundRecord read(long recordNumber, RoundRecord into) {
+        MappedByteBuffer data = rounds.buffer();
+        int base = (int) (HEADER_BYTES + recordNumber * RECORD_BYTES);
+        into.gameId = data.getLong(base + R_GAME_ID);
+        into.map = data.getInt(base + R_MAP);
+        into.round = data.getInt(base + R_ROUND);
+        into.player = getName(data, base + R_PLAYER);
+        into.kills = data.getInt(base + R_KILLS);
+        into.gold = data.getInt(base + R_GOLD);
+        into.lastWaveKills = data.getInt(base + R_LAST_WAVE_KILLS);
+        into.lastWaveGold = data.getInt(base + R_LAST_WAVE_GOLD);
+        into.durationMs = data.getInt(base + R_DURATION);
+        into.flags = data.getInt(base + R_FLAGS);
+        return into;
+    }
+
+    public long getGameId(int game) {
+        return index.buffer().getLong(gameOffset(game) + G_GAME_ID);
+    }
+
+    public int getGameMap(int game) {
+        return index.buffer().getInt(gameOffset(game) + G_MAP);
+    }
+
+    public int getGameMaxRound(int game) {
+        return index.buffer().getInt(gameOffset(game) + G_MAX_ROUND);
+    }
+
+    public long getGameFirstRecord(int game) {
+        return index.buffer().getLong(gameOffset(game) + G_FIRST_RECORD);
+    }
+
+    public int getGameRecordCount(int game) {
+        return index.buffer().getInt(gameOffset(game) + G_RECORD_COUNT);
+    }
+
+    @Override
+    public void flush() {
+        if (publishPending) {
+            published = rollups.copy();
+            publishPending = false;
+        }
+        if (rounds != null) {
+            rounds.force();
+            index.force();
+        }
+        if (rollupsDirty && rollupsFile != null) {
+            try {
+                rollups.save(rollupsFile);
+                rollupsDirty = false;
+            } catch (IOException e) {
+                YogurtRecapMod.getLogger().error("Could not save history rollups", e);
+            }
+        }
+    }
+
+    public void close() {
+        try {
+            if (rounds != null) {
+                rounds.close();
+            }
+            if (index != null) {
+                index.close();
+            }
+        } catch (IOException e) {
+            YogurtRecapMod.getLogger().error("Could not close round history", e);
+        }
+        rounds = null;
+        index = null;
+    }
+
+    private static long readHeader(MappedByteBuffer buffer, int magic) throws IOException {
+        int storedMagic = buffer.getInt(0);
+        if (storedMagic == 0) { // fresh file
+            buffer.putInt(0, magic);
+            buffer.putInt(4, VERSION);
+            buffer.putLong(COUNT_OFFSET, 0L);
+            return 0L;
+        }
+        if (storedMagic != magic || buffer.getInt(4) != VERSION) {
+            throw new IOException("Unrecognised history file header");
+        }
+        return buffer.getLong(COUNT_OFFSET);
+    }
+
+    private static int gameOffset(int game) {
+        return HEADER_BYTES + game * GAME_BYTES;
+    }
+
+    private static void putName(MappedByteBuffer buffer, int offset, String name) {
+        int length = name == null ? 0 : Math.min(name.length(), RoundRecord.NAME_LENGTH);
+        for (int i = 0; i < RoundRecord.NAME_LENGTH; i++) {
+            char c = i < length ? name.charAt(i) : 0;
+            buffer.put(offset + i, (byte) (c < 0x80 ? c : '?'));
+        }
+    }
+
+    private static String getName(MappedByteBuffer buffer, int offset) {
+        char[] chars = new char[RoundRecord.NAME_LENGTH];
+        int length = 0;
+        while (length < RoundRecord.NAME_LENGTH && buffer.get(offset + length) != 0) {
+            chars[length] = (char) buffer.get(offset + length);
+            length++;
+        }
+        return new String(chars, 0, length);
+    }
+}
@@ -0,0 +1,62 @@
+package com.yogurt.recap.features.history;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read-write memory mapping of one file that grows geometrically on demand.
+ *
+ * The old mapping is simply dropped when growing (Java 8 has no explicit unmap); growth is rare, so the extra
+ * mapping until GC is acceptable.
+ */
+final class MappedFile {
+    private static final int MIN_MAPPING = 64 * 1024;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    MappedFile(File path) throws IOException {
+        this.file = new RandomAccessFile(path, "rw");
+        this.channel = file.getChannel();
+        map(Math.max(MIN_MAPPING, channel.size()));
+    }
+
+    MappedByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Makes sure at least {@code bytes} bytes are mapped. The returned buffer replaces any previous one.
+     */
+    MappedByteBuffer ensureCapacity(long bytes) throws IOException {
+        if (bytes > buffer.capacity()) {
+            long capacity = buffer.capacity();
+            while (capacity < bytes) {
+                capacity *= 2;
+            }
+            if (capacity > Integer.MAX_VALUE) {
+                throw new IOException("History file too large: " + capacity + " bytes");
+            }
+            map(capacity);
+        }
+        return buffer;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void close() throws IOException {
+        force();
+        channel.close();
+        file.close();
+    }
+
+    private void map(long capacity) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+}
@@ -0,0 +1,26 @@
+package com.yogurt.recap.features.history;
+
+/**
+ * One player's stats for one round, as stored in the history file. Mutable and meant to be reused.
+ */
+public final class RoundRecord {
+    /** Stored length of {@link #player}; Minecraft usernames are at most 16 ASCII characters. */
+    public static final int NAME_LENGTH = 16;
+
+    public static final int FLAG_HAS_LAST_WAVE = 1;
+
+    public long gameId;      // wall-clock millis of the game's first round
+    public int map;          // LanguageUtils.ZombiesMap ordinal, -1 if unknown
+    public int round;
+    public String player;
+    public int kills;
+    public int gold;
+    public int lastWaveKills;
+    public int lastWaveGold;
+    public int durationMs;   // round duration from RoundTimer, 0 if unknown
+    public int flags;
+
+    public boolean hasLastWave() {
+        return (flags & FLAG_HAS_LAST_WAVE) != 0;
+    }
+}
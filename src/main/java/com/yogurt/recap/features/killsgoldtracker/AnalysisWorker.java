@@ -0,0 +1,120 @@
+package com.yogurt.recap.features.killsgoldtracker;
+
+import com.yogurt.recap.YogurtRecapMod;
+import com.yogurt.recap.utils.SpscQueue;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The tracker's analysis thread: runs submitted jobs one at a time, in submission order.
+ *
+ * Jobs come from the client thread through a bounded {@link SpscQueue}; the thread parks when there is nothing to
+ * do. Everything owned by {@link StatsAnalyzer} is only ever touched from here.
+ *
+ * If the queue is full, capture and report jobs ({@link #submit}) are shed. Control jobs that move the analyzer
+ * between rounds and games ({@link #submitControl}) are never dropped - losing one would leave stale state behind
+ * for the rest of the game - and the client thread never waits for the worker either: a control job that doesn't
+ * fit goes into a client-side backlog, moved into the queue ahead of anything submitted later ({@link #tick()} and
+ * every submit). Capture jobs are shed while the backlog isn't empty, so nothing overtakes a control job.
+ */
+final class AnalysisWorker implements Runnable {
+    private static final int CAPACITY = 256;
+
+    private final SpscQueue<Runnable> queue = new SpscQueue<>(CAPACITY);
+    private final ArrayDeque<Runnable> controlBacklog = new ArrayDeque<>(); // client thread only
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile Thread thread;
+    private volatile boolean parked;
+
+    /**
+     * Queues a capture / report {@code job}, starting the thread on first use; dropped if the queue is full.
+     * Client thread only.
+     */
+    boolean submit(Runnable job) {
+        start();
+        if (!flushBacklog() || !queue.offer(job)) {
+            dropped.incrementAndGet();
+            YogurtRecapMod.getLogger().warn("Analysis queue full, dropping job");
+            return false;
+        }
+        wake();
+        return true;
+    }
+
+    /**
+     * Queues a control {@code job} (new game, reset, round boundary, exit). Never dropped and never blocks: if the
+     * queue is full it is kept in the backlog until the worker has room. Client thread only.
+     */
+    void submitControl(Runnable job) {
+        start();
+        if (flushBacklog() && queue.offer(job)) {
+            wake();
+            return;
+        }
+        if (controlBacklog.isEmpty()) {
+            YogurtRecapMod.getLogger().warn("Analysis queue full, holding control jobs until the worker catches up");
+        }
+        controlBacklog.add(job);
+    }
+
+    /**
+     * Moves held control jobs into the queue as it drains. Once per tick; client thread only.
+     */
+    void tick() {
+        flushBacklog();
+    }
+
+    // True once the backlog is empty.
+    private boolean flushBacklog() {
+        if (controlBacklog.isEmpty()) {
+            return true;
+        }
+        while (!controlBacklog.isEmpty() && queue.offer(controlBacklog.peek())) {
+            controlBacklog.poll();
+        }
+        wake();
+        return controlBacklog.isEmpty();
+    }
+
+    private void wake() {
+        if (parked) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void start() {
+        if (thread == null) {
+            Thread worker = new Thread(this, YogurtRecapMod.NAME + " analysis");
+            worker.setDaemon(true);
+            thread = worker;
+            worker.start();
+        }
+    }
+
+    long getDropped() {
+        return dropped.get();
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            Runnable job = queue.poll();
+            if (job == null) {
+                parked = true;
+                if (queue.isEmpty()) {
+                    LockSupport.park(this);
+                }
+                parked = false;
+                continue;
+            }
+            try {
+                job.run();
+            } catch (Throwable t) {
+                // Errors too: if this thread died, no later job (control ones included) would ever run.
+                YogurtRecapMod.getLogger().error("Kills/gold analysis failed", t);
+            }
+        }
+    }
+}
@@ -2,816 +2,325 @@ package com.yogurt.recap.features.killsgoldtracker;
 
 import com.yogurt.recap.YogurtRecapMod;
 import com.yogurt.recap.config.ModConfig;
+import com.yogurt.recap.handler.DebugLog;
+import com.yogurt.recap.handler.DebugLog.Level;
+import com.yogurt.recap.handler.PerfMetrics;
+import com.yogurt.recap.handler.ScoreboardManager;
+import com.yogurt.recap.handler.TablistKillsIndex;
+import com.yogurt.recap.handler.TickContext;
+import com.yogurt.recap.handler.TickScheduler;
 import com.yogurt.recap.utils.GameUtils;
+import com.yogurt.recap.utils.LanguageUtils;
 import com.yogurt.recap.utils.PlayerUtils;
-import com.yogurt.recap.utils.StringUtils;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.network.NetworkPlayerInfo;
-import net.minecraft.scoreboard.Score;
-import net.minecraft.scoreboard.ScoreObjective;
-import net.minecraft.scoreboard.Scoreboard;
-import net.minecraft.util.ChatComponentText;
-import net.minecraft.util.EnumChatFormatting;
-import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
-import net.minecraftforge.fml.common.gameevent.TickEvent;
 
-import java.util.*;
-import java.util.regex.Pattern;
+import java.util.Collection;
+import java.util.UUID;
 
 /**
  * Ported from ShowSpawnTime-2.1.1: tracks per-player kills (tablist objective) + gold (sidebar lines)
  * and reports per-round deltas (+ last-wave deltas when wave timing is available).
+ *
+ * This class is the client-thread side: it follows rounds and waves, decides when to capture, and at a capture
+ * point only copies the raw sidebar / tablist data into a {@link RawCapture}. Parsing, name matching, diffing and
+ * report formatting run on the {@link AnalysisWorker} thread ({@link StatsAnalyzer}), which posts finished chat
+ * output back with {@code Minecraft#addScheduledTask}.
  */
 public class KillsGoldTracker {
 
     private static final Minecraft minecraft = Minecraft.getMinecraft();
-    private static final Pattern MC_FORMATTING_CODE = Pattern.compile("§.");
-
-    // Track stats per player
-    private static Map<String, PlayerStats> roundStartStats = new HashMap<>();     // round N start
-    private static Map<String, PlayerStats> lastWaveStartStats = new HashMap<>(); // round N last-wave start
+    private static final DebugLog LOG = YogurtRecapMod.getDebugLog();
+    private static final AnalysisWorker WORKER = new AnalysisWorker();
+    private static final StatsAnalyzer ANALYZER = new StatsAnalyzer(); // worker thread only
+    private static final PlayerRates RATES = new PlayerRates();
 
     private static int currentRound = 0;
     private static int currentWave = 0;
-    private static final int REPORT_DELAY_TICKS = 25; // 1.25 second delay (25 ticks) - gives tablist time to populate
+    // Sidebar rows 6.. are the players' gold (see capture()): dirty bits (row - 1).
+    private static final int PLAYER_ROWS_MASK = ((1 << ScoreboardManager.MAX_ROWS) - 1) & ~0x1F;
+
+    // Snapshot settling after a round title: wait until the players' gold rows and tablist kills stop changing.
+    private static int settleTicks = 0;     // ticks since the round title
+    private static int stableTicks = 0;     // ticks since the last relevant change
+    private static long settleGeneration;   // sidebar generation already looked at
+    private static long settleKillsVersion; // tablist kills version already looked at
 
-    private static PendingReport pendingReport = null;
-    private static int snapshotDelayTicks = 0; // shared delay: captures (end of previous round) AND (start of current round)
+    private static final int TITLE_MISSING_RESET_TICKS = 10; // 0.5 seconds without the Zombies title before resetting
+    private static final int ROUND1_DEBUG_INTERVAL_TICKS = 20;
     private static int lastRoundTitleSeen = 0;
-    private static int titleMissingTicks = 0; // Count ticks where title is missing before resetting (prevents false resets during transitions)
-    private static int round1TickCounter = 0; // Counter for Round 1 debug logging
-    private static boolean chatMessagesEnabled = true; // Toggle for chat messages
-    private static boolean debugEnabled = false; // Runtime debug toggle (can be toggled via command)
-
-    private static final class PendingReport {
-        final int round;
-        final Map<String, PlayerStats> roundStart;
-        final Map<String, PlayerStats> lastWaveStart;
-
-        private PendingReport(int round, Map<String, PlayerStats> roundStart, Map<String, PlayerStats> lastWaveStart) {
-            this.round = round;
-            this.roundStart = roundStart;
-            this.lastWaveStart = lastWaveStart;
-        }
-    }
+    private static volatile boolean chatMessagesEnabled = true; // Toggle for chat messages (read by the worker too)
+
+    // Delayed actions on the shared tick scheduler
+    private static final TickScheduler.Task snapshotTask =   // shared delay: captures (end of previous round) AND (start of current round)
+            YogurtRecapMod.getScheduler().newTask(KillsGoldTracker::onSnapshotDue);
+    private static final TickScheduler.Task exitTask =       // debounced reset once the Zombies title has been gone for a while
+            YogurtRecapMod.getScheduler().newTask(KillsGoldTracker::onZombiesExit);
+    private static final TickScheduler.Task round1DebugTask = // periodic Round 1 wave logging
+            YogurtRecapMod.getScheduler().newTask(KillsGoldTracker::logRound1Wave);
+
+    private static final PerfMetrics.Counter CAPTURES = YogurtRecapMod.getPerf().counter("kills_gold_captures",
+            "Sidebar/tablist captures handed to the analysis thread");
 
-    // Called from MixinGuiIngame when round title is displayed
+    // Called from GameTitleHandler when a round (or end-of-game) title arrives
     public static void onRoundStart(int newRound) {
         if (!ModConfig.KILLS_GOLD_TRACKER_ENABLED) {
             return;
         }
 
-        debug("onRoundStart newRound=" + newRound + " currentRound=" + currentRound
-                + " snapshotDelayTicks=" + snapshotDelayTicks
-                + " pendingReport=" + (pendingReport != null ? ("round=" + pendingReport.round + " startSize=" + pendingReport.roundStart.size()) : "null"));
+        LOG.log(Level.DEBUG, "onRoundStart snapshotScheduled={} newRound={} currentRound={}",
+                Boolean.valueOf(snapshotTask.isScheduled()), newRound, currentRound);
 
         // Detect new game: if we see Round 1 but currentRound > 1, that means we started a new game
         // (you can't go backwards in rounds within a single game session).
         if (newRound == 1 && currentRound > 1) {
-            reset();
-            debug("Reset state because newRound=1 but currentRound=" + currentRound + " (new game detected)");
+            LOG.log(Level.DEBUG, "Reset state because newRound=1 but currentRound={} (new game detected)", currentRound);
+            resetForNewGame();
         }
 
         // If currentRound is 0, we're starting fresh (new game or just joined).
         // Reset everything to ensure clean state, especially if joining mid-game (Round 2+).
         if (currentRound == 0) {
-            reset();
-            debug("Reset state because currentRound was 0 (new game/joined mid-game)");
+            resetForNewGame();
+            LOG.log(Level.DEBUG, "Reset state because currentRound was 0 (new game/joined mid-game)");
         }
 
-        // If we're transitioning from an existing round to a new round, schedule report for the old round.
-        if (currentRound > 0 && newRound != currentRound && pendingReport == null) {
-            pendingReport = new PendingReport(
-                    currentRound,
-                    copyStatsMap(roundStartStats),      // start snapshot (captured at roundStart+delay)
-                    copyStatsMap(lastWaveStartStats)    // last-wave snapshot (captured at last-wave start)
-            );
-            debug("Created pendingReport for round " + pendingReport.round
-                    + " (roundStartStats.size=" + pendingReport.roundStart.size()
-                    + ", lastWaveStartStats.size=" + pendingReport.lastWaveStart.size() + ")");
-        }
+        // If we're transitioning from an existing round to a new round, the old round is reported with the next snapshot.
+        int reportRound = (currentRound > 0 && newRound != currentRound) ? currentRound : 0;
+        // The timer was already restarted for a new round; an end title (round 0) leaves it running.
+        int durationMs = newRound > 0
+                ? YogurtRecapMod.getRoundTimer().getLastRoundMs()
+                : YogurtRecapMod.getRoundTimer().getElapsedMs();
+        WORKER.submitControl(() -> ANALYZER.beginRound(reportRound, durationMs));
 
         // Update current round immediately (so wave detection uses correct round),
-        // but delay the "start snapshot" capture to (round title + REPORT_DELAY_TICKS)
+        // but delay the "start snapshot" capture until the sidebar gold and tablist kills have settled
         currentRound = newRound;
         currentWave = 0;
-        lastWaveStartStats.clear();
-        round1TickCounter = 0; // Reset debug counter on round change
+        if (newRound > 0) {
+            RATES.onWave(newRound, 0);
+        }
+        if (newRound == 1) {
+            YogurtRecapMod.getScheduler().schedule(round1DebugTask, ROUND1_DEBUG_INTERVAL_TICKS);
+        } else {
+            YogurtRecapMod.getScheduler().cancel(round1DebugTask);
+        }
 
         // Schedule a single delayed snapshot that will serve as:
-        // - endStats for pendingReport (previous round)
-        // - roundStartStats for the new currentRound (start snapshot at round+delay)
-        snapshotDelayTicks = REPORT_DELAY_TICKS;
+        // - endStats for the pending report (previous round)
+        // - roundStartStats for the new currentRound (start snapshot once values settled)
+        settleTicks = 0;
+        stableTicks = 0;
+        settleGeneration = YogurtRecapMod.getScoreboardManager().getGeneration();
+        settleKillsVersion = YogurtRecapMod.getTablistKills().getVersion();
+        YogurtRecapMod.getScheduler().schedule(snapshotTask, 1);
         lastRoundTitleSeen = newRound;
-        debug("Scheduled snapshotDelayTicks=" + REPORT_DELAY_TICKS + " for round " + newRound);
+        LOG.log(Level.DEBUG, "Snapshot for round {} once stable for {} ticks (at most {})", newRound,
+                ModConfig.KILLS_GOLD_SETTLE_TICKS, ModConfig.KILLS_GOLD_SETTLE_MAX_TICKS);
     }
 
-    // Data class to store player stats
-    private static class PlayerStats {
-        int kills;
-        int gold;
-
-        public PlayerStats(int kills, int gold) {
-            this.kills = kills;
-            this.gold = gold;
-        }
-
-        public PlayerStats copy() {
-            return new PlayerStats(this.kills, this.gold);
-        }
-    }
-
-    @SubscribeEvent
-    public void onClientTick(TickEvent.ClientTickEvent event) {
-        if (event.phase != TickEvent.Phase.START) {
-            return;
-        }
-
+    /**
+     * Tracker stage of the {@link TickPipeline} (Zombies ticks and the tick the game is left).
+     */
+    public void onTick(TickContext ctx) {
+        WORKER.tick();
         if (!ModConfig.KILLS_GOLD_TRACKER_ENABLED) {
             return;
         }
 
         // IMPORTANT: don't reset on brief "not in zombies" glitches during transitions.
         // Only reset when we are clearly out of Zombies (title gone for several ticks).
-        if (!PlayerUtils.isInZombiesTitle()) {
-            titleMissingTicks++;
-            // Wait 10 ticks (0.5 seconds) before resetting to avoid false resets during brief title format changes
-            if (titleMissingTicks >= 10) {
-                // If we were tracking a round and the user left / game ended before the next round title,
-                // flush a final report using a best-effort end snapshot.
-                flushPendingReportOnExit();
-                if (currentRound != 0 || snapshotDelayTicks != 0 || pendingReport != null) {
-                    debug("Resetting because Zombies title is gone (likely left game).");
-                }
-                reset();
-                return;
-            }
-            // Title is missing but we haven't waited long enough - continue processing but don't do wave detection
-            return;
+        if (!ctx.isInZombies()) {
+            YogurtRecapMod.getScheduler().scheduleIfIdle(exitTask, TITLE_MISSING_RESET_TICKS);
         } else {
-            // Title is present - reset the missing counter
-            titleMissingTicks = 0;
+            YogurtRecapMod.getScheduler().cancel(exitTask);
+            RATES.update(PlayerRates.now());
         }
+    }
 
-        int wave = YogurtRecapMod.getSpawnTimes().getCurrentWave();
-        
-        // Debug: log wave value every 20 ticks for Round 1 to diagnose detection issues
-        if (currentRound == 1) {
-            round1TickCounter++;
-            if (round1TickCounter % 20 == 0) { // Log every 20 ticks (~1 second)
-                int elapsedMs = YogurtRecapMod.getRoundTimer().getElapsedMs();
-                int[] roundTimes = GameUtils.getRoundTimes(1);
-                debug("Round 1 wave check (tick=" + round1TickCounter + "): wave=" + wave + ", currentWave=" + currentWave 
-                        + ", elapsedMs=" + elapsedMs + ", roundTimes.length=" + (roundTimes != null ? roundTimes.length : -1) 
-                        + ", isLastWave=" + isLastWave(1, wave));
-            }
+    private static void onZombiesExit() {
+        if (currentRound != 0 || snapshotTask.isScheduled()) {
+            LOG.log(Level.DEBUG, "Resetting because Zombies title is gone (likely left game).");
+        }
+        // If we were tracking a round and the user left / game ended before the next round title,
+        // the worker flushes a final report using a best-effort end snapshot, then resets.
+        if (ModConfig.KILLS_GOLD_TRACKER_ENABLED && currentRound > 0) {
+            RawCapture capture = capture();
+            int round = currentRound;
+            int elapsedMs = YogurtRecapMod.getRoundTimer().getElapsedMs();
+            int durationMs = elapsedMs > 0 ? elapsedMs : YogurtRecapMod.getRoundTimer().getLastRoundMs();
+            WORKER.submitControl(() -> ANALYZER.exit(capture, round, durationMs));
         } else {
-            round1TickCounter = 0; // Reset counter when not in Round 1
-        }
-
-        // Wave changed - check if it's the last wave
-        // IMPORTANT: Only capture lastWaveStartStats when we transition TO the last wave,
-        // not when we're already past it or at round start (wave == 0).
-        if (wave != currentWave && wave > 0) {
-            int oldWave = currentWave;
-            currentWave = wave;
-            debug("Wave changed: " + oldWave + " -> " + wave + " (round=" + currentRound + ", isLastWave=" + isLastWave(currentRound, wave) + ")");
-
-            // Only capture if we just transitioned TO the last wave (not if we're already past it).
-            // Also ensure we're not at round start (oldWave should be < wave, and wave should be the last wave).
-            if (isLastWave(currentRound, wave) && oldWave < wave) {
-                // Additional safety checks:
-                // 1) Don't capture if roundStartStats hasn't been captured yet (still in delay period)
-                // 2) Don't capture if elapsed time is suspiciously low (likely a timing bug)
-                int elapsedMs = YogurtRecapMod.getRoundTimer().getElapsedMs();
-                int[] roundTimes = GameUtils.getRoundTimes(currentRound);
-                int minElapsedForLastWave = (roundTimes.length > 0) ? roundTimes[roundTimes.length - 1] * 1000 : 5000;
-                
-                if (!roundStartStats.isEmpty() && elapsedMs >= minElapsedForLastWave - 2000) {
-                    // Allow 2 second tolerance before the expected last wave time
-                    captureStats(lastWaveStartStats);
-                    debug("Captured lastWaveStartStats at wave=" + wave + " for round=" + currentRound + " (elapsed=" + elapsedMs + "ms)");
-                } else {
-                    debug("Skipped lastWaveStartStats capture: roundStartStats.isEmpty=" + roundStartStats.isEmpty() 
-                            + ", elapsedMs=" + elapsedMs + " (min=" + (minElapsedForLastWave - 2000) + "), wave=" + wave + ", round=" + currentRound);
-                }
-            }
-        }
-
-        // Count down the delay (if active)
-        if (snapshotDelayTicks > 0) {
-            snapshotDelayTicks--;
-            if (snapshotDelayTicks == 0) {
-                // Capture snapshot AFTER delay so late gold updates are included.
-                Map<String, PlayerStats> snapshot = new HashMap<>();
-                captureStats(snapshot);
-                debug("Captured delayed snapshot for roundTitle=" + lastRoundTitleSeen + " snapshot.size=" + snapshot.size());
-
-                // If we have a pending report, use this snapshot as the "endStats" for the previous round.
-                if (pendingReport != null) {
-                    if (pendingReport.roundStart.isEmpty()) {
-                        debug("NOT reporting round " + pendingReport.round + " because roundStart snapshot is empty. "
-                                + "Likely missed the start snapshot for that round.");
-                    }
-                    reportCombinedStats(pendingReport, snapshot);
-                    pendingReport = null;
-                }
-
-                // Also use this same snapshot as the start snapshot for the current round (round title + delay).
-                roundStartStats = snapshot;
-            }
+            WORKER.submitControl(ANALYZER::reset);
         }
+        reset();
     }
 
-    private boolean isLastWave(int round, int wave) {
-        int[] roundTimes = GameUtils.getRoundTimes(round);
-        return roundTimes.length > 0 && wave == roundTimes.length;
-    }
-
-    private static void captureStats(Map<String, PlayerStats> storage) {
-        storage.clear();
-
-        // First, parse the entire scoreboard and extract all player name -> gold mappings
-        // This ensures we capture gold values even if name matching is imperfect
-        Map<String, Integer> scoreboardGoldMap = new HashMap<>();
-        for (int i = 6; i <= YogurtRecapMod.getScoreboardManager().getSize(); i++) {
-            String content = YogurtRecapMod.getScoreboardManager().getContent(i);
-            
-            // Skip empty lines or lines starting with space
-            if (content.startsWith(" ") || content.isEmpty()) {
-                continue;
-            }
-
-            String colon = content.contains(":") ? ":" : (content.contains("：") ? "：" : "");
-            if (colon.isEmpty()) {
-                continue;
-            }
-
-            // Use indexOf instead of split to handle cases where colon might appear in formatting codes
-            int colonIndex = content.indexOf(colon);
-            if (colonIndex < 0) {
-                colonIndex = content.indexOf("：");
-            }
-            if (colonIndex < 0) {
-                continue;
-            }
-
-            // Extract player name (everything before the colon)
-            String rawName = content.substring(0, colonIndex);
-            // Extract gold part (everything after the colon)
-            String goldPartRaw = content.substring(colonIndex + colon.length());
-
-            // Extract and clean player name - try multiple methods
-            String scoreboardPlayerName = stripFormatting(rawName.trim());
-            if (scoreboardPlayerName.isEmpty()) {
-                scoreboardPlayerName = StringUtils.trim(rawName);
-            }
-            // If still empty, try removing all formatting codes manually
-            if (scoreboardPlayerName.isEmpty()) {
-                scoreboardPlayerName = rawName.replaceAll("§.", "").trim();
-            }
-            if (scoreboardPlayerName.isEmpty()) {
-                continue;
-            }
-
-            // Extract gold value (use the goldPartRaw we extracted above)
-            String goldPart = StringUtils.trim(goldPartRaw);
-            goldPart = goldPart.replaceAll("§.", ""); // Remove color codes
-            goldPart = goldPart.replaceAll("[,\\s]", ""); // Remove commas and spaces
-            
-            int gold = 0;
-            try {
-                gold = Integer.parseInt(goldPart);
-            } catch (NumberFormatException e) {
-                // Try to extract any sequence of digits
-                String numbers = goldPart.replaceAll("[^0-9]", "");
-                if (!numbers.isEmpty()) {
-                    try {
-                        gold = Integer.parseInt(numbers);
-                    } catch (NumberFormatException ex) {
-                        // Keep gold as 0
-                    }
-                }
-            }
-
-            // Store the scoreboard name -> gold mapping
-            // Store both the exact name and a normalized version (lowercase, no extra spaces) for better matching
-            scoreboardGoldMap.put(scoreboardPlayerName, gold);
-            // Also store lowercase version for case-insensitive matching
-            String normalizedName = scoreboardPlayerName.toLowerCase().trim();
-            if (!normalizedName.equals(scoreboardPlayerName.toLowerCase())) {
-                scoreboardGoldMap.put(normalizedName, gold);
-            }
-            
-            // Special handling for long names (14+ chars): also store prefix versions
-            // This handles cases where the scoreboard might truncate long names
-            if (scoreboardPlayerName.length() >= 14) {
-                // Store first 14 characters as a key (in case it's truncated)
-                String prefix14 = scoreboardPlayerName.substring(0, Math.min(14, scoreboardPlayerName.length()));
-                scoreboardGoldMap.put(prefix14.toLowerCase(), gold);
-                // Also store first 13 and 15 characters for better matching
-                if (scoreboardPlayerName.length() >= 13) {
-                    String prefix13 = scoreboardPlayerName.substring(0, 13);
-                    scoreboardGoldMap.put(prefix13.toLowerCase(), gold);
-                }
-                if (scoreboardPlayerName.length() >= 15) {
-                    String prefix15 = scoreboardPlayerName.substring(0, 15);
-                    scoreboardGoldMap.put(prefix15.toLowerCase(), gold);
-                }
-            }
+    private static void onSnapshotDue() {
+        if (!PlayerUtils.isInZombiesTitle()) {
+            // Title is glitching during a transition: hold the snapshot until it's back (or the exit reset fires).
+            YogurtRecapMod.getScheduler().schedule(snapshotTask, 1);
+            return;
         }
 
-        // Now iterate through all players in tablist and match them to scoreboard data
-        if (minecraft != null && minecraft.thePlayer != null && minecraft.thePlayer.sendQueue != null) {
-            Collection<NetworkPlayerInfo> allPlayers = minecraft.thePlayer.sendQueue.getPlayerInfoMap();
-            for (NetworkPlayerInfo info : allPlayers) {
-                if (info.getGameProfile() == null) continue;
-                String canonicalUsername = info.getGameProfile().getName();
-                if (canonicalUsername == null || canonicalUsername.isEmpty()) continue;
-                // Skip NPCs / non-players (Hypixel NPCs often have weird names)
-                if (canonicalUsername.startsWith("!") || canonicalUsername.length() < 3 || canonicalUsername.length() > 16) continue;
-
-                int kills = getKillsFromTablist(info);
-                
-                // Try multiple strategies to find gold:
-                // 1. Exact match (case-sensitive)
-                // 2. Exact match (case-insensitive)
-                // 3. Fuzzy match: check if scoreboard name ends with canonical username (handles rank prefixes)
-                // 4. Fuzzy match: check if canonical username is contained in scoreboard name
-                int gold = 0;
-                
-                // Strategy 1: Exact match (case-sensitive)
-                gold = scoreboardGoldMap.getOrDefault(canonicalUsername, 0);
-                
-                // Strategy 2: Case-insensitive exact match
-                if (gold == 0) {
-                    for (Map.Entry<String, Integer> entry : scoreboardGoldMap.entrySet()) {
-                        if (entry.getKey().equalsIgnoreCase(canonicalUsername)) {
-                            gold = entry.getValue();
-                            break;
-                        }
-                    }
-                }
-                
-                // Strategy 3: Scoreboard name ends with canonical username (handles rank prefixes like "[VIP] PlayerName")
-                if (gold == 0) {
-                    String canonicalLower = canonicalUsername.toLowerCase();
-                    for (Map.Entry<String, Integer> entry : scoreboardGoldMap.entrySet()) {
-                        String scoreboardName = entry.getKey();
-                        String scoreboardLower = scoreboardName.toLowerCase();
-                        // Check if scoreboard name ends with canonical username
-                        if (scoreboardLower.endsWith(canonicalLower) && scoreboardLower.length() > canonicalLower.length()) {
-                            gold = entry.getValue();
-                            break;
-                        }
-                    }
-                }
-                
-                // Strategy 4: Scoreboard name starts with canonical username (handles cases where scoreboard has prefix)
-                if (gold == 0) {
-                    String canonicalLower = canonicalUsername.toLowerCase();
-                    for (Map.Entry<String, Integer> entry : scoreboardGoldMap.entrySet()) {
-                        String scoreboardName = entry.getKey();
-                        String scoreboardLower = scoreboardName.toLowerCase();
-                        // Check if scoreboard name starts with canonical username
-                        if (scoreboardLower.startsWith(canonicalLower) && scoreboardLower.length() >= canonicalLower.length()) {
-                            gold = entry.getValue();
-                            break;
-                        }
-                    }
-                }
-                
-                // Strategy 5: Canonical username is contained in scoreboard name (more lenient, but with better safeguards)
-                if (gold == 0) {
-                    String canonicalLower = canonicalUsername.toLowerCase();
-                    for (Map.Entry<String, Integer> entry : scoreboardGoldMap.entrySet()) {
-                        String scoreboardName = entry.getKey();
-                        String scoreboardLower = scoreboardName.toLowerCase();
-                        // Check if scoreboard name contains canonical username
-                        // Make sure it's not a false positive (e.g., "Player" matching "Player12")
-                        if (scoreboardLower.contains(canonicalLower)) {
-                            // For long usernames (>= 10 chars), be more lenient
-                            // For shorter usernames, require at least 4 chars to avoid false matches
-                            if (canonicalLower.length() >= 10 || (canonicalLower.length() >= 4 && scoreboardLower.length() <= canonicalLower.length() + 5)) {
-                                gold = entry.getValue();
-                                break;
-                            }
-                        }
-                    }
-                }
-                
-                // Strategy 6: Special handling for long usernames (15-16 chars) - they might be truncated on scoreboard
-                // Try matching using prefixes (we stored prefix versions in the map)
-                if (gold == 0 && canonicalUsername.length() >= 15) {
-                    String canonicalLower = canonicalUsername.toLowerCase();
-                    // Try matching with first 14, 13, or 15 characters (stored as keys in the map)
-                    String prefix14 = canonicalLower.substring(0, Math.min(14, canonicalLower.length()));
-                    gold = scoreboardGoldMap.getOrDefault(prefix14, 0);
-                    
-                    if (gold == 0 && canonicalLower.length() >= 13) {
-                        String prefix13 = canonicalLower.substring(0, 13);
-                        gold = scoreboardGoldMap.getOrDefault(prefix13, 0);
-                    }
-                    
-                    if (gold == 0 && canonicalLower.length() >= 15) {
-                        String prefix15 = canonicalLower.substring(0, 15);
-                        gold = scoreboardGoldMap.getOrDefault(prefix15, 0);
-                    }
-                    
-                    // Also try reverse: check if any scoreboard name is a prefix of canonical username
-                    if (gold == 0) {
-                        for (Map.Entry<String, Integer> entry : scoreboardGoldMap.entrySet()) {
-                            String scoreboardName = entry.getKey();
-                            String scoreboardLower = scoreboardName.toLowerCase();
-                            // Check if canonical username starts with scoreboard name (scoreboard is truncated)
-                            if (canonicalLower.startsWith(scoreboardLower) && scoreboardLower.length() >= 13) {
-                                gold = entry.getValue();
-                                break;
-                            }
-                        }
-                    }
-                }
-                
-                // Strategy 7: Last resort - check if any part of the scoreboard name matches (for edge cases)
-                // This handles cases where the name might be formatted weirdly or truncated
-                if (gold == 0 && canonicalUsername.length() >= 10) {
-                    String canonicalLower = canonicalUsername.toLowerCase();
-                    // Try matching last 10+ characters of canonical username
-                    String canonicalSuffix = canonicalLower.length() >= 10 ? canonicalLower.substring(canonicalLower.length() - 10) : canonicalLower;
-                    for (Map.Entry<String, Integer> entry : scoreboardGoldMap.entrySet()) {
-                        String scoreboardName = entry.getKey();
-                        String scoreboardLower = scoreboardName.toLowerCase();
-                        // Check if scoreboard name ends with the suffix of canonical username
-                        if (scoreboardLower.endsWith(canonicalSuffix) && scoreboardLower.length() >= canonicalSuffix.length()) {
-                            gold = entry.getValue();
-                            break;
-                        }
-                    }
-                }
-                
-                // Strategy 8: For long names, try matching any substring of 12+ characters
-                if (gold == 0 && canonicalUsername.length() >= 15) {
-                    String canonicalLower = canonicalUsername.toLowerCase();
-                    // Try matching with a 12-character substring from the middle/end
-                    int startIdx = Math.max(0, canonicalLower.length() - 12);
-                    String canonicalSubstring = canonicalLower.substring(startIdx);
-                    for (Map.Entry<String, Integer> entry : scoreboardGoldMap.entrySet()) {
-                        String scoreboardName = entry.getKey();
-                        String scoreboardLower = scoreboardName.toLowerCase();
-                        // Check if scoreboard name contains this substring
-                        if (scoreboardLower.contains(canonicalSubstring) && canonicalSubstring.length() >= 12) {
-                            gold = entry.getValue();
-                            break;
-                        }
-                    }
-                }
-
-                storage.put(canonicalUsername, new PlayerStats(kills, gold));
-                
-                // Debug logging for all players when debug is enabled
-                if (ModConfig.KILLS_GOLD_TRACKER_DEBUG || debugEnabled) {
-                    debug("Gold lookup for " + canonicalUsername + " (len=" + canonicalUsername.length() + "): found=" + gold + ", scoreboardMapSize=" + scoreboardGoldMap.size());
-                    if (gold == 0) {
-                        debug("Scoreboard entries: " + scoreboardGoldMap.keySet().toString());
-                        // Also show what matching strategies were tried
-                        String canonicalLower = canonicalUsername.toLowerCase();
-                        debug("Tried matching: exact='" + canonicalUsername + "', lowercase='" + canonicalLower + "'");
-                        if (canonicalUsername.length() >= 15) {
-                            debug("Long name prefixes: 13='" + canonicalLower.substring(0, Math.min(13, canonicalLower.length())) + 
-                                  "', 14='" + canonicalLower.substring(0, Math.min(14, canonicalLower.length())) + 
-                                  "', 15='" + canonicalLower.substring(0, Math.min(15, canonicalLower.length())) + "'");
-                        }
-                    }
-                }
-            }
+        // Capture snapshot only once late gold / kills updates have landed.
+        if (!isSettled()) {
+            YogurtRecapMod.getScheduler().schedule(snapshotTask, 1);
+            return;
         }
+        LOG.log(Level.DEBUG, "Snapshot settled after {} ticks (stable for {})", settleTicks, stableTicks);
+        RawCapture capture = capture();
+        int round = lastRoundTitleSeen;
+        WORKER.submit(() -> ANALYZER.roundSnapshot(capture, round));
     }
 
-    private static List<String> getPlayerNamesFromScoreboard() {
-        List<String> playerNames = new ArrayList<>();
-
-        for (int i = 6; i <= YogurtRecapMod.getScoreboardManager().getSize(); i++) {
-            String content = YogurtRecapMod.getScoreboardManager().getContent(i);
-            
-            // Skip empty lines or lines starting with space, but continue scanning (don't break)
-            // This allows us to find players even if there are gaps in the scoreboard
-            if (content.startsWith(" ") || content.isEmpty()) {
-                continue;
-            }
-
-            String colon = content.contains(":") ? ":" : (content.contains("：") ? "：" : "");
-            // If no colon found, this line isn't a player gold line - skip it but continue
-            if (colon.isEmpty()) {
-                continue;
-            }
-
-            String playerName = stripFormatting(StringUtils.trim(content.split(colon)[0]));
-            // Only add if we got a valid player name
-            if (!playerName.isEmpty()) {
-                playerNames.add(playerName);
-            }
+    /**
+     * One settle step per tick (run after the sidebar was published): true once the players' gold rows and tablist
+     * kills have been unchanged for the configured window, or the hard cap since the round title is reached.
+     */
+    private static boolean isSettled() {
+        settleTicks++;
+        ScoreboardManager sidebar = YogurtRecapMod.getScoreboardManager();
+        long killsVersion = YogurtRecapMod.getTablistKills().getVersion();
+        boolean goldChanged = sidebar.getGeneration() != settleGeneration
+                && (sidebar.getDirtyRows() & PLAYER_ROWS_MASK) != 0;
+        if (goldChanged || killsVersion != settleKillsVersion) {
+            stableTicks = 0;
+        } else {
+            stableTicks++;
         }
-
-        return playerNames;
+        settleGeneration = sidebar.getGeneration();
+        settleKillsVersion = killsVersion;
+        return stableTicks >= Math.max(1, ModConfig.KILLS_GOLD_SETTLE_TICKS)
+                || settleTicks >= ModConfig.KILLS_GOLD_SETTLE_MAX_TICKS;
     }
 
-    private static int getGoldFromScoreboard(String playerName) {
-        // Normalize the target player name (strip formatting for comparison)
-        String targetName = stripFormatting(playerName);
-        if (targetName.isEmpty()) {
-            return 0;
-        }
-
-        for (int i = 6; i <= YogurtRecapMod.getScoreboardManager().getSize(); i++) {
-            String content = YogurtRecapMod.getScoreboardManager().getContent(i);
-            
-            // Skip empty lines or lines starting with space
-            if (content.startsWith(" ") || content.isEmpty()) {
-                continue;
-            }
-
-            String colon = content.contains(":") ? ":" : (content.contains("：") ? "：" : "");
-            if (colon.isEmpty()) {
-                continue;
-            }
-
-            // Extract player name from this scoreboard line (same logic as getPlayerNamesFromScoreboard)
-            String[] parts = content.split(colon);
-            if (parts.length < 2) {
-                continue;
-            }
-            String linePlayerName = stripFormatting(StringUtils.trim(parts[0]));
-
-            // Match exactly (after stripping formatting) to avoid partial matches
-            // (e.g., "Player" shouldn't match "Player12")
-            if (linePlayerName.equals(targetName)) {
-                // Gold is the number after the colon
-                String goldPart = StringUtils.trim(parts[1]);
-
-                // Remove all color codes (§ followed by any character)
-                goldPart = goldPart.replaceAll("§.", "");
-
-                // Remove commas and spaces
-                goldPart = goldPart.replaceAll("[,\\s]", "");
-
-                // Extract just the numbers
-                try {
-                    return Integer.parseInt(goldPart);
-                } catch (NumberFormatException e) {
-                    // If parsing fails, try to extract any sequence of digits
-                    String numbers = goldPart.replaceAll("[^0-9]", "");
-                    if (!numbers.isEmpty()) {
-                        try {
-                            return Integer.parseInt(numbers);
-                        } catch (NumberFormatException ex) {
-                            return 0;
-                        }
-                    }
-                }
-            }
+    // Debug: log wave value every 20 ticks for Round 1 to diagnose detection issues
+    private static void logRound1Wave() {
+        if (currentRound != 1) {
+            return;
         }
-
-        return 0;
+        int wave = YogurtRecapMod.getSpawnTimes().getCurrentWave();
+        int elapsedMs = YogurtRecapMod.getRoundTimer().getElapsedMs();
+        LOG.log(Level.TRACE, () -> "Round 1 wave check: wave=" + wave + ", currentWave=" + currentWave
+                + ", elapsedMs=" + elapsedMs + ", waveCount=" + GameUtils.getWaveCount(1)
+                + ", isLastWave=" + isLastWave(1, wave));
+        YogurtRecapMod.getScheduler().schedule(round1DebugTask, ROUND1_DEBUG_INTERVAL_TICKS);
     }
 
-    private static NetworkPlayerInfo getPlayerInfoFromTablist(String playerName) {
-        if (minecraft == null || minecraft.thePlayer == null || minecraft.thePlayer.sendQueue == null) {
-            return null;
-        }
-
-        String target = stripFormatting(playerName);
-        if (target.isEmpty()) {
-            return null;
-        }
-
-        Collection<NetworkPlayerInfo> playerInfos = minecraft.thePlayer.sendQueue.getPlayerInfoMap();
-
-        // 1) Fast path: exact username match
-        for (NetworkPlayerInfo info : playerInfos) {
-            if (info.getGameProfile() != null) {
-                String name = info.getGameProfile().getName();
-                if (name != null && name.equals(target)) {
-                    return info;
-                }
-            }
+    // Called from SpawnTimes on the first tick past a scheduled wave boundary
+    public static void onWaveChanged(int round, int oldWave, int wave) {
+        if (!ModConfig.KILLS_GOLD_TRACKER_ENABLED || !PlayerUtils.isInZombiesTitle()) {
+            return;
         }
-
-        // 2) Fallback: match against stripped tablist display name (handles rank prefixes, icons, etc.)
-        for (NetworkPlayerInfo info : playerInfos) {
-            if (info.getGameProfile() == null) {
-                continue;
-            }
-            if (info.getDisplayName() == null) {
-                continue;
-            }
-            String formatted = info.getDisplayName().getFormattedText();
-            String stripped = stripFormatting(formatted);
-            if (stripped.contains(target)) {
-                return info;
-            }
+        if (round != currentRound || wave <= 0) {
+            return;
         }
-
-        return null;
+        currentWave = wave;
+        RATES.onWave(round, wave);
+        LOG.log(Level.DEBUG, () -> "Wave changed: " + oldWave + " -> " + wave + " (round=" + round
+                + ", isLastWave=" + isLastWave(round, wave) + ")");
+
+        // The last-wave snapshot is only taken on the transition TO the last wave (not if we're already past it),
+        // and not if elapsed time is suspiciously low (likely a timing bug).
+        boolean lastWave = false;
+        if (isLastWave(currentRound, wave) && oldWave < wave) {
+            int elapsedMs = YogurtRecapMod.getRoundTimer().getElapsedMs();
+            int lastWaveMillis = GameUtils.getLastWaveMillis(currentRound);
+            int minElapsedForLastWave = (lastWaveMillis >= 0) ? lastWaveMillis : 5000;
+            // Allow 2 second tolerance before the expected last wave time
+            lastWave = elapsedMs >= minElapsedForLastWave - 2000;
+            if (!lastWave) {
+                LOG.log(Level.INFO, () -> "Skipped lastWaveStartStats capture: elapsedMs=" + elapsedMs
+                        + " (min=" + (minElapsedForLastWave - 2000) + "), wave=" + wave + ", round=" + round);
+            }
+        }
+
+        RawCapture capture = capture();
+        boolean captureLastWave = lastWave;
+        WORKER.submit(() -> ANALYZER.waveChanged(capture, round, wave, captureLastWave));
     }
 
-    private static int getKillsFromTablist(NetworkPlayerInfo playerInfo) {
-        if (playerInfo == null) {
-            return 0;
-        }
-
-        String username = playerInfo.getGameProfile() != null ? playerInfo.getGameProfile().getName() : "";
-
-        // Primary method (correct for 1.8 tablist): the yellow number is usually the player-list scoreboard objective,
-        // rendered separately from NetworkPlayerInfo#getDisplayName().
-        try {
-            if (!username.isEmpty() && minecraft != null && minecraft.theWorld != null) {
-                Scoreboard scoreboard = minecraft.theWorld.getScoreboard();
-                ScoreObjective playerListObjective = scoreboard.getObjectiveInDisplaySlot(0); // tablist objective
-                if (playerListObjective != null) {
-                    Score score = scoreboard.getValueFromObjective(username, playerListObjective);
-                    if (score != null) {
-                        return score.getScorePoints();
-                    }
-                }
-            }
-        } catch (Exception ignored) {
-            // fall back to parsing formatted name below
-        }
-
-        // Use formatted tablist text so we can detect the yellow-colored number segment.
-        String formatted = "";
-        if (playerInfo.getDisplayName() != null) {
-            formatted = playerInfo.getDisplayName().getFormattedText();
-        }
-        if (formatted == null || formatted.isEmpty()) {
-            // If no formatted display name is available, we can't reliably parse the colored segment.
-            return 0;
-        }
-
-        // Find where the username ends in the stripped text; kills appear after the nickname in tablist.
-        String stripped = stripFormatting(formatted);
-        int nameIndex = username.isEmpty() ? -1 : stripped.indexOf(username);
-        int startStrippedPos = (nameIndex >= 0) ? (nameIndex + username.length()) : 0;
-
-        // Walk the formatted text, tracking current color, and extract the first yellow-colored number after the name.
-        StringBuilder digits = new StringBuilder();
-        char currentColor = 0;
-        int strippedPos = 0;
-        boolean collecting = false;
-
-        for (int i = 0; i < formatted.length(); i++) {
-            char c = formatted.charAt(i);
-            if (c == '§' && i + 1 < formatted.length()) {
-                currentColor = Character.toLowerCase(formatted.charAt(i + 1));
-                i++; // skip color code char
-                continue;
-            }
-
-            // This character is visible; advance stripped position.
-            boolean afterName = strippedPos >= startStrippedPos;
-
-            // Hypixel uses '§e' (yellow) commonly; sometimes '§6' (gold) is used for yellow-ish numbers.
-            boolean isYellow = currentColor == 'e' || currentColor == '6';
-            boolean isDigitOrComma = (c >= '0' && c <= '9') || c == ',';
-
-            if (!collecting) {
-                if (afterName && isYellow && isDigitOrComma) {
-                    collecting = true;
-                    digits.append(c);
-                }
-            } else {
-                // Stop if color changes away from yellow or the sequence ends.
-                if (!isYellow || !isDigitOrComma) {
-                    break;
-                }
-                digits.append(c);
-            }
-
-            strippedPos++;
-        }
-
-        if (digits.length() > 0) {
-            String number = digits.toString().replace(",", "");
-            try {
-                return Integer.parseInt(number);
-            } catch (NumberFormatException ignored) {
-                return 0;
-            }
-        }
-
-        // Fallback: no colored segment found.
-        return 0;
+    private static boolean isLastWave(int round, int wave) {
+        int waveCount = GameUtils.getWaveCount(round);
+        return waveCount > 0 && wave == waveCount;
     }
 
-    private static String stripFormatting(String s) {
-        if (s == null || s.isEmpty()) {
-            return "";
-        }
-        return MC_FORMATTING_CODE.matcher(s).replaceAll("").trim();
+    /**
+     * Records a user checkpoint at the current round/wave; the worker confirms it in chat.
+     * Returns {@code false} if no round is being tracked.
+     */
+    public static boolean markCheckpoint() {
+        if (!ModConfig.KILLS_GOLD_TRACKER_ENABLED || currentRound <= 0 || !PlayerUtils.isInZombiesTitle()) {
+            return false;
+        }
+        RawCapture capture = capture();
+        int round = currentRound;
+        int wave = currentWave;
+        return WORKER.submit(() -> ANALYZER.mark(capture, round, wave));
     }
 
-    private static void reportCombinedStats(PendingReport report, Map<String, PlayerStats> endStats) {
-        if (report == null || report.roundStart.isEmpty() || endStats == null || endStats.isEmpty()) {
-            debug("reportCombinedStats skipped (report null/empty start or endStats empty). "
-                    + "report=" + (report == null ? "null" : ("round=" + report.round + " startSize=" + report.roundStart.size()))
-                    + " endStatsSize=" + (endStats == null ? "null" : endStats.size()));
-            return;
-        }
-
-        // Calculate differences for entire round (endStats - roundStart)
-        List<PlayerStatsDiff> roundDiffs = new ArrayList<>();
-        for (Map.Entry<String, PlayerStats> entry : endStats.entrySet()) {
-            String playerName = entry.getKey();
-            PlayerStats end = entry.getValue();
-            PlayerStats start = report.roundStart.get(playerName);
-            if (start != null) {
-                roundDiffs.add(new PlayerStatsDiff(playerName, end.kills - start.kills, end.gold - start.gold));
-            }
-        }
-
-        // Calculate differences for last wave only (endStats - lastWaveStart)
-        List<PlayerStatsDiff> lastWaveDiffs = new ArrayList<>();
-        if (!report.lastWaveStart.isEmpty()) {
-            for (Map.Entry<String, PlayerStats> entry : endStats.entrySet()) {
-                String playerName = entry.getKey();
-                PlayerStats end = entry.getValue();
-                PlayerStats start = report.lastWaveStart.get(playerName);
-                if (start != null) {
-                    lastWaveDiffs.add(new PlayerStatsDiff(playerName, end.kills - start.kills, end.gold - start.gold));
-                }
-            }
-        }
+    /**
+     * Sends the per-wave kills/gold breakdown of {@code round} to chat (computed on the worker).
+     */
+    public static void sendWaveBreakdown(int round) {
+        WORKER.submit(() -> ANALYZER.sendWaveBreakdown(round));
+    }
 
-        // Sort by full round kills (descending)
-        roundDiffs.sort((a, b) -> Integer.compare(b.kills, a.kills));
+    /**
+     * Live per-player gold / kill rates and per-wave totals. Client thread only.
+     */
+    public static PlayerRates getRates() {
+        return RATES;
+    }
 
-        // Create a map for quick last wave lookup
-        Map<String, PlayerStatsDiff> lastWaveMap = new HashMap<>();
-        for (PlayerStatsDiff diff : lastWaveDiffs) {
-            lastWaveMap.put(diff.playerName, diff);
-        }
+    public static int getCurrentRound() {
+        return currentRound;
+    }
 
-        // Find the longest username length in the team
-        int longestUsernameLength = 0;
-        for (PlayerStatsDiff diff : roundDiffs) {
-            int length = diff.playerName.length();
-            if (length > longestUsernameLength) {
-                longestUsernameLength = length;
-            }
-        }
+    /**
+     * Copies what the analysis needs from the sidebar and tablist. Client thread only; kills are read from the
+     * tablist index and the gold rows are parsed later on the worker.
+     */
+    private static RawCapture capture() {
+        CAPTURES.increment();
+        ScoreboardManager sidebar = YogurtRecapMod.getScoreboardManager();
+        int sidebarRows = Math.max(0, sidebar.getSize() - 5);
+        String[] sidebarLines = new String[sidebarRows];
+        for (int i = 0; i < sidebarRows; i++) {
+            sidebarLines[i] = sidebar.getContent(i + 6);
+        }
+
+        LanguageUtils.ZombiesMap zombiesMap = LanguageUtils.getMap();
+        int map = (zombiesMap == null || zombiesMap == LanguageUtils.ZombiesMap.NULL) ? -1 : zombiesMap.ordinal();
+
+        int playerCount = 0;
+        String[] names = null;
+        UUID[] ids = null;
+        int[] kills = null;
+        if (minecraft != null && minecraft.thePlayer != null && minecraft.thePlayer.sendQueue != null) {
+            Collection<NetworkPlayerInfo> allPlayers = minecraft.thePlayer.sendQueue.getPlayerInfoMap();
+            TablistKillsIndex killsIndex = YogurtRecapMod.getTablistKills();
+            names = new String[allPlayers.size()];
+            ids = new UUID[names.length];
+            kills = new int[names.length];
+            for (NetworkPlayerInfo info : allPlayers) {
+                if (info.getGameProfile() == null) continue;
+                String canonicalUsername = info.getGameProfile().getName();
+                if (canonicalUsername == null || canonicalUsername.isEmpty()) continue;
+                // Skip NPCs / non-players (Hypixel NPCs often have weird names)
+                if (canonicalUsername.startsWith("!") || canonicalUsername.length() < 3 || canonicalUsername.length() > 16) continue;
+                if (playerCount == names.length) break;
 
-        // Build single multi-line message
-        StringBuilder messageBuilder = new StringBuilder();
-        messageBuilder.append(EnumChatFormatting.GOLD).append(EnumChatFormatting.STRIKETHROUGH).append("━━━━━━━━━━━━━━━━━━━━━\n");
-
-        // Format each player with aligned stats
-        for (PlayerStatsDiff roundDiff : roundDiffs) {
-            String playerName = roundDiff.playerName;
-            int roundKills = roundDiff.kills;
-            int roundGold = roundDiff.gold;
-            
-            // Get last wave stats if available
-            PlayerStatsDiff lastWaveDiff = lastWaveMap.get(playerName);
-            int lastWaveKills = (lastWaveDiff != null) ? lastWaveDiff.kills : 0;
-            int lastWaveGold = (lastWaveDiff != null) ? lastWaveDiff.gold : 0;
-            
-            // Calculate alignment: spaces after colon = longestUsernameLength - currentUsernameLength + 1
-            // This ensures at least 1 space, and aligns all usernames to the same column
-            int usernameLength = playerName.length();
-            int spacesAfterColon = longestUsernameLength - usernameLength + 1;
-            
-            // Build the line: PlayerName: [spaces] kills/gold | kills/gold
-            messageBuilder.append(EnumChatFormatting.WHITE).append(playerName).append(":");
-            
-            // Add alignment spaces
-            for (int i = 0; i < spacesAfterColon; i++) {
-                messageBuilder.append(" ");
+                names[playerCount] = canonicalUsername;
+                ids[playerCount] = info.getGameProfile().getId();
+                // Kept current by the score packet hooks; a display-name parse only happens if the name changed.
+                kills[playerCount] = killsIndex.getKills(canonicalUsername, info.getDisplayName());
+                playerCount++;
             }
-            
-            // Full round stats: kills/gold
-            messageBuilder.append(EnumChatFormatting.RED).append(roundKills);
-            messageBuilder.append(EnumChatFormatting.GRAY).append("/");
-            messageBuilder.append(EnumChatFormatting.GOLD).append(roundGold);
-            
-            // Separator and last wave stats
-            messageBuilder.append("  "); // Two spaces before pipe
-            messageBuilder.append(EnumChatFormatting.WHITE).append("|");
-            messageBuilder.append("  "); // Two spaces after pipe
-            
-            // Last wave stats: kills/gold
-            messageBuilder.append(EnumChatFormatting.RED).append(lastWaveKills);
-            messageBuilder.append(EnumChatFormatting.GRAY).append("/");
-            messageBuilder.append(EnumChatFormatting.GOLD).append(lastWaveGold);
-            
-            messageBuilder.append("\n");
-        }
-
-        messageBuilder.append(EnumChatFormatting.GOLD).append(EnumChatFormatting.STRIKETHROUGH).append("━━━━━━━━━━━━━━━━━━━━━");
-
-        // Send as single message (only if chat messages are enabled)
-        if (chatMessagesEnabled) {
-            PlayerUtils.sendMessage(messageBuilder.toString());
         }
+        return new RawCapture(System.currentTimeMillis(), map, sidebar.getGeneration(), sidebarLines,
+                playerCount, names, ids, kills);
     }
 
     public static boolean isChatMessagesEnabled() {
@@ -822,97 +331,17 @@ public class KillsGoldTracker {
         chatMessagesEnabled = enabled;
     }
 
-    private static Map<String, PlayerStats> copyStatsMap(Map<String, PlayerStats> input) {
-        Map<String, PlayerStats> copy = new HashMap<>();
-        if (input == null) {
-            return copy;
-        }
-        for (Map.Entry<String, PlayerStats> e : input.entrySet()) {
-            PlayerStats v = e.getValue();
-            if (v != null) {
-                copy.put(e.getKey(), v.copy());
-            }
-        }
-        return copy;
-    }
-
     private static void reset() {
-        roundStartStats.clear();
-        lastWaveStartStats.clear();
         currentRound = 0;
         currentWave = 0;
-        snapshotDelayTicks = 0;
-        pendingReport = null;
+        YogurtRecapMod.getScheduler().cancel(snapshotTask);
+        YogurtRecapMod.getScheduler().cancel(round1DebugTask);
         lastRoundTitleSeen = 0;
-        titleMissingTicks = 0;
+        RATES.clear();
     }
 
-    private static void flushPendingReportOnExit() {
-        try {
-            if (!ModConfig.KILLS_GOLD_TRACKER_ENABLED) {
-                return;
-            }
-
-            // If we don't have a start snapshot, we can't compute diffs reliably.
-            if (currentRound <= 0 || roundStartStats.isEmpty()) {
-                return;
-            }
-
-            Map<String, PlayerStats> endSnapshot = new HashMap<>();
-            captureStats(endSnapshot);
-            if (endSnapshot.isEmpty()) {
-                return;
-            }
-
-            if (pendingReport != null) {
-                reportCombinedStats(pendingReport, endSnapshot);
-                pendingReport = null;
-                return;
-            }
-
-            // No pendingReport means we never saw the next round title, so report currentRound using current start snapshot.
-            PendingReport report = new PendingReport(
-                    currentRound,
-                    copyStatsMap(roundStartStats),
-                    copyStatsMap(lastWaveStartStats)
-            );
-            reportCombinedStats(report, endSnapshot);
-        } catch (Exception ignored) {
-            // Never crash the client if something goes wrong during exit flush.
-        }
-    }
-
-    private static void debug(String msg) {
-        // Debug is enabled if either config is enabled OR runtime toggle is enabled
-        if (!ModConfig.KILLS_GOLD_TRACKER_DEBUG && !debugEnabled) {
-            return;
-        }
-        if (minecraft == null || minecraft.thePlayer == null) {
-            return;
-        }
-        minecraft.thePlayer.addChatMessage(new ChatComponentText(EnumChatFormatting.DARK_GRAY + "[KGT DEBUG] " + msg));
-    }
-
-    public static boolean isDebugEnabled() {
-        return debugEnabled;
-    }
-
-    public static void setDebugEnabled(boolean enabled) {
-        debugEnabled = enabled;
-    }
-
-    // Helper class for player stats difference
-    private static class PlayerStatsDiff {
-        String playerName;
-        int kills;
-        int gold;
-
-        public PlayerStatsDiff(String playerName, int kills, int gold) {
-            this.playerName = playerName;
-            this.kills = kills;
-            this.gold = gold;
-        }
+    private static void resetForNewGame() {
+        reset();
+        WORKER.submitControl(ANALYZER::newGame);
     }
 }
-
-
@@ -0,0 +1,369 @@
+package com.yogurt.recap.features.killsgoldtracker;
+
+import com.yogurt.recap.YogurtRecapMod;
+import com.yogurt.recap.handler.ScoreboardManager;
+import com.yogurt.recap.handler.TablistKillsIndex;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.network.NetworkPlayerInfo;
+
+import java.util.Arrays;
+
+/**
+ * Live per-player gold and kill streams, diffed from the sidebar gold rows and the tablist kills index as they change
+ * (the index timeline carries objective scores and display-name kills alike).
+ *
+ * Players are tablist players only: each one's gold row is found through a {@link SidebarNameIndex}, as the round
+ * analysis does, so other "label: number" rows (Zombie Kills, Time, ...) never become players. A player gets a slot
+ * once their gold row resolves; when all slots are taken, the slot of whoever left the tablist the longest ago is
+ * cleared and reused.
+ *
+ * Each player has two event rings (gold earned, kills) of primitive columns: event time and the running total
+ * before the event. A tail pointer follows the fixed live window, so recording an event and reading the live rate
+ * are O(1) amortized; other windows binary-search the ring. The highest live-window sum is kept as the peak burst.
+ * Per-wave totals go into a ring of wave buckets opened at every round start and wave boundary. Everything is
+ * allocated up front (rings per player on first use), so memory stays bounded however long the game runs.
+ * Client thread only.
+ */
+public final class PlayerRates {
+    public static final int MAX_PLAYERS = StatsStore.MAX_SLOTS;
+    public static final long LIVE_WINDOW_MS = 10_000L;
+
+    static final int EVENT_CAPACITY = 256;  // per player and stream, power of two; far more than a live window holds
+    static final int WAVE_CAPACITY = 1024;  // same as WaveCheckpoints: a full Alien Arcadium game
+
+    public static final int GOLD = 0;
+    public static final int KILLS = 1;
+
+    private static final class Stream {
+        private static final int MASK = EVENT_CAPACITY - 1;
+
+        final long[] times = new long[EVENT_CAPACITY];
+        final long[] totalsBefore = new long[EVENT_CAPACITY];
+        long next;  // id of the next event
+        long total;
+        long tail;  // oldest event id inside the live window
+        long peak;  // highest live-window sum so far
+
+        void add(long now, int value) {
+            int index = (int) next & MASK;
+            times[index] = now;
+            totalsBefore[index] = total;
+            total += value;
+            next++;
+            long live = liveSum(now);
+            if (live > peak) {
+                peak = live;
+            }
+        }
+
+        long liveSum(long now) {
+            long oldest = oldest();
+            if (tail < oldest) {
+                tail = oldest;
+            }
+            long from = now - LIVE_WINDOW_MS;
+            while (tail < next && times[(int) tail & MASK] <= from) {
+                tail++;
+            }
+            return sumFrom(tail);
+        }
+
+        long sumSince(long now, long windowMs) {
+            long from = now - windowMs;
+            long low = oldest();
+            long high = next;
+            while (low < high) {
+                long mid = (low + high) >>> 1;
+                if (times[(int) mid & MASK] <= from) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return sumFrom(low);
+        }
+
+        private long sumFrom(long id) {
+            return id >= next ? 0L : total - totalsBefore[(int) id & MASK];
+        }
+
+        private long oldest() {
+            return Math.max(0L, next - EVENT_CAPACITY);
+        }
+
+        void clear() {
+            next = 0L;
+            total = 0L;
+            tail = 0L;
+            peak = 0L;
+        }
+    }
+
+    private final SidebarLineParser lineParser = new SidebarLineParser();
+    private final SidebarNameIndex nameIndex = new SidebarNameIndex();
+
+    // Player slots
+    private final String[] names = new String[MAX_PLAYERS];
+    private final Stream[][] streams = new Stream[MAX_PLAYERS][];
+    private final int[] lastGold = new int[MAX_PLAYERS];
+    private final int[] lastKills = new int[MAX_PLAYERS];
+    private final boolean[] hasGold = new boolean[MAX_PLAYERS];
+    private final boolean[] hasKills = new boolean[MAX_PLAYERS];
+    private final long[] lastSeen = new long[MAX_PLAYERS]; // tablist scan the slot's player was last on
+    private int playerCount = 0;
+    private int onTablist = 0; // bit per slot whose player was in the latest tablist scan
+    private long tablistScans = 0L;
+
+    // Sources already consumed
+    private long seenGeneration = -1L;
+    private long killsCursor = 0L;
+    private boolean replayKills = true; // after a clear: rebuild the kill baselines from the timeline, no events
+
+    // Wave buckets: totals per (wave, player slot)
+    private final int[] waveRounds = new int[WAVE_CAPACITY];
+    private final int[] waveNumbers = new int[WAVE_CAPACITY];
+    private final int[] waveGold = new int[WAVE_CAPACITY * MAX_PLAYERS];
+    private final int[] waveKills = new int[WAVE_CAPACITY * MAX_PLAYERS];
+    private long nextWave = 0L;
+
+    /**
+     * Opens a new wave bucket; wave 0 is the part of a round before its first wave boundary.
+     */
+    void onWave(int round, int wave) {
+        int index = (int) (nextWave % WAVE_CAPACITY);
+        waveRounds[index] = round;
+        waveNumbers[index] = wave;
+        Arrays.fill(waveGold, index * MAX_PLAYERS, (index + 1) * MAX_PLAYERS, 0);
+        Arrays.fill(waveKills, index * MAX_PLAYERS, (index + 1) * MAX_PLAYERS, 0);
+        nextWave++;
+    }
+
+    /**
+     * Diffs whatever changed since the last call into events. Runs once per tick after the sidebar was published.
+     */
+    void update(long nowMillis) {
+        updateGold(nowMillis); // first: it creates the slots the kills are booked to
+        updateKills(nowMillis);
+    }
+
+    void clear() {
+        for (int slot = 0; slot < playerCount; slot++) {
+            names[slot] = null;
+            streams[slot][GOLD].clear();
+            streams[slot][KILLS].clear();
+            hasGold[slot] = false;
+            hasKills[slot] = false;
+        }
+        playerCount = 0;
+        onTablist = 0;
+        seenGeneration = -1L;
+        replayKills = true;
+        nextWave = 0L;
+        lineParser.clear();
+        nameIndex.clear();
+    }
+
+    private void updateKills(long now) {
+        TablistKillsIndex index = YogurtRecapMod.getTablistKills();
+        long next = index.getTimelineNext();
+        if (next < killsCursor) {
+            killsCursor = 0L; // the index was cleared (new world)
+        }
+        long oldest = index.getTimelineOldest();
+        if (killsCursor < oldest || replayKills) {
+            killsCursor = oldest; // fell behind the ring: the skipped changes only show up in the next diff
+        }
+        boolean replay = replayKills;
+        replayKills = false;
+        for (long id = killsCursor; id < next; id++) {
+            // Only players with a slot (a gold row); a newcomer's first kill change before that becomes the baseline.
+            int slot = findSlot(index.getTimelinePlayer(id));
+            if (slot < 0) {
+                continue;
+            }
+            int kills = index.getTimelineKills(id);
+            if (!replay && hasKills[slot] && kills > lastKills[slot]) {
+                record(slot, KILLS, now, kills - lastKills[slot]);
+            }
+            lastKills[slot] = kills;
+            hasKills[slot] = true;
+        }
+        killsCursor = next;
+    }
+
+    private void updateGold(long now) {
+        ScoreboardManager sidebar = YogurtRecapMod.getScoreboardManager();
+        if (sidebar.getGeneration() == seenGeneration) {
+            return;
+        }
+        seenGeneration = sidebar.getGeneration();
+
+        // Rows 6.. are what the capture hands the analysis; only rows a tablist player resolves to are used.
+        nameIndex.beginUpdate();
+        for (int row = 6; row <= sidebar.getSize(); row++) {
+            SidebarLineParser.ParsedLine parsed = lineParser.parse(sidebar.getContent(row));
+            if (parsed != null) {
+                nameIndex.offer(parsed.name, parsed.gold);
+            }
+        }
+        nameIndex.endUpdate();
+
+        Minecraft mc = Minecraft.getMinecraft();
+        if (mc == null || mc.thePlayer == null || mc.thePlayer.sendQueue == null) {
+            return;
+        }
+        // Mark who is still on the tablist before any slot is handed out, so only leavers' slots get reused.
+        tablistScans++;
+        onTablist = 0;
+        for (NetworkPlayerInfo info : mc.thePlayer.sendQueue.getPlayerInfoMap()) {
+            int slot = info.getGameProfile() == null ? -1 : findSlot(info.getGameProfile().getName());
+            if (slot >= 0) {
+                onTablist |= 1 << slot;
+                lastSeen[slot] = tablistScans;
+            }
+        }
+        for (NetworkPlayerInfo info : mc.thePlayer.sendQueue.getPlayerInfoMap()) {
+            if (info.getGameProfile() == null) {
+                continue;
+            }
+            String name = info.getGameProfile().getName();
+            // Same player filter as the capture: skip NPCs / non-players
+            if (name == null || name.startsWith("!") || name.length() < 3 || name.length() > 16) {
+                continue;
+            }
+            int row = nameIndex.rowFor(info.getGameProfile().getId(), name);
+            if (row < 0) {
+                continue; // no gold row (spectator, lobby)
+            }
+            int slot = slotOf(name);
+            if (slot < 0) {
+                continue;
+            }
+            int gold = nameIndex.getGold(row);
+            if (hasGold[slot] && gold > lastGold[slot]) {
+                record(slot, GOLD, now, gold - lastGold[slot]); // spending is not income
+            }
+            lastGold[slot] = gold;
+            hasGold[slot] = true;
+        }
+    }
+
+    private void record(int slot, int stream, long now, int value) {
+        streams[slot][stream].add(now, value);
+        if (nextWave > 0L) {
+            int at = (int) ((nextWave - 1) % WAVE_CAPACITY) * MAX_PLAYERS + slot;
+            if (stream == GOLD) {
+                waveGold[at] += value;
+            } else {
+                waveKills[at] += value;
+            }
+        }
+    }
+
+    private int findSlot(String name) {
+        for (int slot = 0; slot < playerCount; slot++) {
+            if (names[slot].equals(name)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Slot of tablist player {@code name}, created on first sight. With every slot taken, the slot of the player off
+     * the tablist the longest is cleared and handed over; -1 if everyone is still on it.
+     */
+    private int slotOf(String name) {
+        int slot = findSlot(name);
+        if (slot >= 0) {
+            return slot;
+        }
+        if (playerCount < MAX_PLAYERS) {
+            slot = playerCount++;
+            if (streams[slot] == null) {
+                streams[slot] = new Stream[]{new Stream(), new Stream()};
+            }
+        } else {
+            for (int candidate = 0; candidate < MAX_PLAYERS; candidate++) {
+                if ((onTablist & (1 << candidate)) == 0 && (slot < 0 || lastSeen[candidate] < lastSeen[slot])) {
+                    slot = candidate;
+                }
+            }
+            if (slot < 0) {
+                return -1;
+            }
+            forgetSlot(slot);
+        }
+        names[slot] = name;
+        onTablist |= 1 << slot;
+        lastSeen[slot] = tablistScans;
+        return slot;
+    }
+
+    // The slot's player left: drop their events and wave totals before someone else takes it over.
+    private void forgetSlot(int slot) {
+        streams[slot][GOLD].clear();
+        streams[slot][KILLS].clear();
+        hasGold[slot] = false;
+        hasKills[slot] = false;
+        for (int wave = 0; wave < WAVE_CAPACITY; wave++) {
+            waveGold[wave * MAX_PLAYERS + slot] = 0;
+            waveKills[wave * MAX_PLAYERS + slot] = 0;
+        }
+    }
+
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    public String getName(int slot) {
+        return names[slot];
+    }
+
+    /**
+     * Events of {@code stream} ({@link #GOLD} or {@link #KILLS}) per second over the live window.
+     */
+    public double getLiveRate(int slot, int stream, long nowMillis) {
+        return streams[slot][stream].liveSum(nowMillis) * 1000.0 / LIVE_WINDOW_MS;
+    }
+
+    /**
+     * Total of {@code stream} over the last {@code windowMs} (as far back as the ring reaches: EVENT_CAPACITY events).
+     */
+    public long getSumSince(int slot, int stream, long nowMillis, long windowMs) {
+        return streams[slot][stream].sumSince(nowMillis, windowMs);
+    }
+
+    /**
+     * Highest total of {@code stream} within any live window since the game started.
+     */
+    public long getPeak(int slot, int stream) {
+        return streams[slot][stream].peak;
+    }
+
+    // Wave buckets: the newest is getNextWave() - 1; the last WAVE_CAPACITY are kept.
+
+    public long getNextWave() {
+        return nextWave;
+    }
+
+    public int getWaveRound(long id) {
+        return waveRounds[(int) (id % WAVE_CAPACITY)];
+    }
+
+    public int getWaveNumber(long id) {
+        return waveNumbers[(int) (id % WAVE_CAPACITY)];
+    }
+
+    public int getWaveTotal(long id, int slot, int stream) {
+        int at = (int) (id % WAVE_CAPACITY) * MAX_PLAYERS + slot;
+        return stream == GOLD ? waveGold[at] : waveKills[at];
+    }
+
+    /**
+     * Monotonic clock the streams are stamped with.
+     */
+    public static long now() {
+        return System.nanoTime() / 1_000_000L;
+    }
+}
@@ -0,0 +1,34 @@
+package com.yogurt.recap.features.killsgoldtracker;
+
+import java.util.UUID;
+
+/**
+ * What the client thread copies at a capture point: the raw sidebar gold rows and, per tablist player, the name,
+ * UUID and kills from the {@link com.yogurt.recap.handler.TablistKillsIndex}.
+ *
+ * Only references to already-immutable strings are copied, so taking one is about as cheap as an array copy; all
+ * parsing and name matching happens later on the analysis thread. Never modified after construction.
+ */
+final class RawCapture {
+    final long timeMillis;
+    final int map; // history map id (ZombiesMap ordinal, -1 if unknown)
+    final long sidebarGeneration;
+    final String[] sidebarLines; // sidebar rows 6.. (where the player gold lines are), as published
+
+    final int playerCount;
+    final String[] names;
+    final UUID[] ids;
+    final int[] kills;
+
+    RawCapture(long timeMillis, int map, long sidebarGeneration, String[] sidebarLines,
+               int playerCount, String[] names, UUID[] ids, int[] kills) {
+        this.timeMillis = timeMillis;
+        this.map = map;
+        this.sidebarGeneration = sidebarGeneration;
+        this.sidebarLines = sidebarLines;
+        this.playerCount = playerCount;
+        this.names = names;
+        this.ids = ids;
+        this.kills = kills;
+    }
+}
@@ -0,0 +1,152 @@
+package com.yogurt.recap.features.killsgoldtracker;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Single-pass parser for sidebar gold lines ("PlayerName: 1,234").
+ *
+ * One char scan finds the separator (':' or the full-width '：'), skips formatting codes,
+ * collects the visible player name and accumulates the gold digits, without regex or intermediate Strings.
+ * Results are memoized per raw line: sidebar rows rarely change between captures, so most lookups are a single
+ * hash hit returning the same {@link ParsedLine} instance as last time.
+ */
+final class SidebarLineParser {
+
+    private static final int MEMO_CAPACITY = 64;
+    private static final char FULL_WIDTH_COLON = '：';
+
+    /** Memo sentinel for rows that are not "name: gold" lines. */
+    private static final ParsedLine NOT_A_GOLD_LINE = new ParsedLine("", 0);
+
+    private final Map<String, ParsedLine> memo = new LinkedHashMap<String, ParsedLine>(MEMO_CAPACITY * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ParsedLine> eldest) {
+            return size() > MEMO_CAPACITY;
+        }
+    };
+
+    // Scratch buffer for names that contain formatting codes (only touched on memo misses).
+    private char[] nameBuffer = new char[32];
+
+    static final class ParsedLine {
+        final String name;
+        final int gold;
+
+        private ParsedLine(String name, int gold) {
+            this.name = name;
+            this.gold = gold;
+        }
+    }
+
+    /**
+     * Returns the parsed line, or {@code null} if {@code line} is not a player gold line
+     * (empty, indented, no separator or no visible name).
+     */
+    ParsedLine parse(String line) {
+        if (line == null || line.isEmpty() || line.charAt(0) == ' ') {
+            return null;
+        }
+        ParsedLine cached = memo.get(line);
+        if (cached == null) {
+            cached = parseUncached(line);
+            memo.put(line, cached);
+        }
+        return cached == NOT_A_GOLD_LINE ? null : cached;
+    }
+
+    void clear() {
+        memo.clear();
+    }
+
+    private ParsedLine parseUncached(String line) {
+        int length = line.length();
+
+        // ':' wins over '：' anywhere on the line (matches the previous contains()-based preference).
+        int separator = -1;
+        int fullWidthSeparator = -1;
+        for (int i = 0; i < length; i++) {
+            char c = line.charAt(i);
+            if (c == '§') {
+                i++; // skip the code character
+            } else if (c == ':') {
+                separator = i;
+                break;
+            } else if (c == FULL_WIDTH_COLON && fullWidthSeparator < 0) {
+                fullWidthSeparator = i;
+            }
+        }
+        if (separator < 0) {
+            separator = fullWidthSeparator;
+        }
+        if (separator < 0) {
+            return NOT_A_GOLD_LINE;
+        }
+
+        String name = visibleTrimmed(line, separator);
+        if (name == null) {
+            return NOT_A_GOLD_LINE;
+        }
+
+        // Gold: every visible digit after the separator; commas, spaces and codes are ignored.
+        long gold = 0L;
+        for (int i = separator + 1; i < length; i++) {
+            char c = line.charAt(i);
+            if (c == '§') {
+                i++;
+            } else if (c >= '0' && c <= '9') {
+                gold = gold * 10L + (c - '0');
+                if (gold > Integer.MAX_VALUE) {
+                    gold = 0L; // unparseable, same as the old NumberFormatException fallback
+                    break;
+                }
+            }
+        }
+        return new ParsedLine(name, (int) gold);
+    }
+
+    /**
+     * Visible (code-stripped, whitespace-trimmed) text of {@code line[0, end)}, or {@code null} if empty.
+     * Avoids copying through a buffer when the name has no formatting codes.
+     */
+    private String visibleTrimmed(String line, int end) {
+        int start = 0;
+        boolean hasCodes = false;
+        for (int i = 0; i < end; i++) {
+            if (line.charAt(i) == '§') {
+                hasCodes = true;
+                break;
+            }
+        }
+
+        if (!hasCodes) {
+            while (start < end && line.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && line.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            return start == end ? null : line.substring(start, end);
+        }
+
+        if (nameBuffer.length < end) {
+            nameBuffer = new char[end];
+        }
+        int count = 0;
+        for (int i = 0; i < end; i++) {
+            char c = line.charAt(i);
+            if (c == '§') {
+                i++;
+                continue;
+            }
+            if (count == 0 && c <= ' ') {
+                continue; // leading whitespace
+            }
+            nameBuffer[count++] = c;
+        }
+        while (count > 0 && nameBuffer[count - 1] <= ' ') {
+            count--;
+        }
+        return count == 0 ? null : new String(nameBuffer, 0, count);
+    }
+}
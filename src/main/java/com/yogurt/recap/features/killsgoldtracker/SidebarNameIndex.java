@@ -0,0 +1,263 @@
+package com.yogurt.recap.features.killsgoldtracker;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Name-resolution index over the sidebar gold rows.
+ *
+ * The index is a lower-cased generalized suffix trie of the sidebar names: every suffix of every name is inserted,
+ * and each node carries row bitmasks for "a name contains this", "a name starts with this", "a name ends with this"
+ * and "a name is exactly this". That answers the exact / rank-prefix / truncated-name / substring lookups the tracker
+ * used to do with repeated scans over the whole gold map, in O(name length) and without allocating.
+ *
+ * The trie is only rebuilt when the sidebar names change; gold values are refreshed in place every capture.
+ * Tablist UUID to row bindings are memoized and dropped on rebuild.
+ */
+final class SidebarNameIndex {
+
+    /** Row sets are int bitmasks. The sidebar never shows more than 15 rows. */
+    static final int MAX_ROWS = 31;
+
+    private final String[] names = new String[MAX_ROWS];
+    private final int[] gold = new int[MAX_ROWS];
+    private int rowCount = 0;
+
+    // Rows offered during the current update, compared against the indexed names on endUpdate()
+    private final String[] pendingNames = new String[MAX_ROWS];
+    private final int[] pendingGold = new int[MAX_ROWS];
+    private int pendingCount = 0;
+
+    // Trie nodes as parallel arrays; children are a first-child / next-sibling list keyed by lower-cased char.
+    private int nodeCount = 0;
+    private char[] label = new char[64];
+    private int[] firstChild = new int[64];
+    private int[] nextSibling = new int[64];
+    private int[] containsMask = new int[64];
+    private int[] prefixMask = new int[64];
+    private int[] endMask = new int[64];
+    private int[] exactMask = new int[64];
+
+    private final Map<UUID, Integer> rowByPlayer = new HashMap<>();
+
+    SidebarNameIndex() {
+        rebuild();
+    }
+
+    void beginUpdate() {
+        pendingCount = 0;
+    }
+
+    void offer(String name, int goldValue) {
+        if (pendingCount >= MAX_ROWS) {
+            return;
+        }
+        pendingNames[pendingCount] = name;
+        pendingGold[pendingCount] = goldValue;
+        pendingCount++;
+    }
+
+    /**
+     * Publishes the offered rows. Returns {@code true} if the names changed and the trie was rebuilt.
+     */
+    boolean endUpdate() {
+        boolean namesChanged = pendingCount != rowCount;
+        for (int i = 0; i < pendingCount && !namesChanged; i++) {
+            namesChanged = !pendingNames[i].equals(names[i]);
+        }
+        System.arraycopy(pendingGold, 0, gold, 0, pendingCount);
+        if (!namesChanged) {
+            return false;
+        }
+        System.arraycopy(pendingNames, 0, names, 0, pendingCount);
+        Arrays.fill(names, pendingCount, MAX_ROWS, null);
+        rowCount = pendingCount;
+        rebuild();
+        return true;
+    }
+
+    void clear() {
+        beginUpdate();
+        endUpdate();
+    }
+
+    int size() {
+        return rowCount;
+    }
+
+    String getName(int row) {
+        return names[row];
+    }
+
+    int getGold(int row) {
+        return gold[row];
+    }
+
+    /**
+     * Memoized {@link #resolve(String)} keyed by the tablist player's UUID.
+     */
+    int rowFor(UUID playerId, String canonicalUsername) {
+        if (playerId == null) {
+            return resolve(canonicalUsername);
+        }
+        Integer cached = rowByPlayer.get(playerId);
+        if (cached != null) {
+            return cached;
+        }
+        int row = resolve(canonicalUsername);
+        rowByPlayer.put(playerId, row);
+        return row;
+    }
+
+    /**
+     * Finds the sidebar row for a tablist username, or -1. Strategies are tried in the same order as the old
+     * linear matcher:
+     * 1. exact (case-sensitive, then case-insensitive)
+     * 2. sidebar name ends with the username (rank prefixes like "[VIP] Name")
+     * 3. sidebar name starts with the username
+     * 4. sidebar name contains the username (length-guarded against "Player" matching "Player12")
+     * 5. long names (15+): first 14 or 13 characters match (sidebar truncation)
+     * 6. 10+ chars: sidebar name ends with the last 10 characters
+     * 7. long names (15+): sidebar name contains the last 12 characters
+     */
+    int resolve(String canonicalUsername) {
+        int length = canonicalUsername.length();
+        if (length == 0 || rowCount == 0) {
+            return -1;
+        }
+
+        int node = walk(canonicalUsername, 0, length);
+        if (node >= 0) {
+            int exact = exactMask[node];
+            if (exact != 0) {
+                for (int rows = exact; rows != 0; rows &= rows - 1) {
+                    int row = Integer.numberOfTrailingZeros(rows);
+                    if (names[row].equals(canonicalUsername)) {
+                        return row;
+                    }
+                }
+                return Integer.numberOfTrailingZeros(exact);
+            }
+            if (endMask[node] != 0) {
+                return Integer.numberOfTrailingZeros(endMask[node]);
+            }
+            if (prefixMask[node] != 0) {
+                return Integer.numberOfTrailingZeros(prefixMask[node]);
+            }
+            for (int rows = containsMask[node]; rows != 0; rows &= rows - 1) {
+                int row = Integer.numberOfTrailingZeros(rows);
+                if (length >= 10 || (length >= 4 && names[row].length() <= length + 5)) {
+                    return row;
+                }
+            }
+        }
+
+        if (length >= 15) {
+            node = walk(canonicalUsername, 0, 14);
+            if (node < 0 || prefixMask[node] == 0) {
+                node = walk(canonicalUsername, 0, 13);
+            }
+            if (node >= 0 && prefixMask[node] != 0) {
+                return Integer.numberOfTrailingZeros(prefixMask[node]);
+            }
+        }
+
+        if (length >= 10) {
+            node = walk(canonicalUsername, length - 10, length);
+            if (node >= 0 && endMask[node] != 0) {
+                return Integer.numberOfTrailingZeros(endMask[node]);
+            }
+        }
+
+        if (length >= 15) {
+            node = walk(canonicalUsername, length - 12, length);
+            if (node >= 0 && containsMask[node] != 0) {
+                return Integer.numberOfTrailingZeros(containsMask[node]);
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(Arrays.copyOf(names, rowCount));
+    }
+
+    private void rebuild() {
+        rowByPlayer.clear();
+        nodeCount = 0;
+        newNode('\0'); // root
+        for (int row = 0; row < rowCount; row++) {
+            String name = names[row];
+            int bit = 1 << row;
+            for (int start = 0; start < name.length(); start++) {
+                int node = 0;
+                for (int i = start; i < name.length(); i++) {
+                    node = childOrCreate(node, Character.toLowerCase(name.charAt(i)));
+                    containsMask[node] |= bit;
+                    if (start == 0) {
+                        prefixMask[node] |= bit;
+                    }
+                }
+                endMask[node] |= bit;
+                if (start == 0) {
+                    exactMask[node] |= bit;
+                }
+            }
+        }
+    }
+
+    /** Follows {@code s[from, to)} (lower-cased) from the root; returns the node or -1. */
+    private int walk(String s, int from, int to) {
+        int node = 0;
+        for (int i = from; i < to && node >= 0; i++) {
+            node = child(node, Character.toLowerCase(s.charAt(i)));
+        }
+        return node;
+    }
+
+    private int child(int node, char c) {
+        for (int n = firstChild[node]; n >= 0; n = nextSibling[n]) {
+            if (label[n] == c) {
+                return n;
+            }
+        }
+        return -1;
+    }
+
+    private int childOrCreate(int node, char c) {
+        int existing = child(node, c);
+        if (existing >= 0) {
+            return existing;
+        }
+        int created = newNode(c);
+        nextSibling[created] = firstChild[node];
+        firstChild[node] = created;
+        return created;
+    }
+
+    private int newNode(char c) {
+        if (nodeCount == label.length) {
+            int capacity = label.length * 2;
+            label = Arrays.copyOf(label, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            containsMask = Arrays.copyOf(containsMask, capacity);
+            prefixMask = Arrays.copyOf(prefixMask, capacity);
+            endMask = Arrays.copyOf(endMask, capacity);
+            exactMask = Arrays.copyOf(exactMask, capacity);
+        }
+        int node = nodeCount++;
+        label[node] = c;
+        firstChild[node] = -1;
+        nextSibling[node] = -1;
+        containsMask[node] = 0;
+        prefixMask[node] = 0;
+        endMask[node] = 0;
+        exactMask[node] = 0;
+        return node;
+    }
+}
@@ -0,0 +1,483 @@
+package com.yogurt.recap.features.killsgoldtracker;
+
+import com.yogurt.recap.YogurtRecapMod;
+import com.yogurt.recap.features.history.RoundRecord;
+import com.yogurt.recap.handler.AllocationTracker;
+import com.yogurt.recap.handler.DebugLog;
+import com.yogurt.recap.handler.DebugLog.Level;
+import com.yogurt.recap.handler.PerfMetrics;
+import com.yogurt.recap.utils.PlayerUtils;
+import net.minecraft.client.Minecraft;
+import net.minecraft.util.ChatComponentText;
+import net.minecraft.util.EnumChatFormatting;
+import net.minecraft.util.IChatComponent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The tracker's analysis side, owned by the {@link AnalysisWorker} thread: turns {@link RawCapture}s into stats
+ * snapshots (sidebar parsing, tablist kills, name resolution), keeps the round / last-wave snapshots and wave
+ * checkpoints, diffs them into the round report and history records, and hands finished chat output back to the
+ * client thread.
+ *
+ * Every method here runs on the worker, in the order {@link KillsGoldTracker} submitted the jobs.
+ */
+final class StatsAnalyzer {
+
+    private final SidebarLineParser lineParser = new SidebarLineParser();
+    private final SidebarNameIndex nameIndex = new SidebarNameIndex();
+    private final String[] indexedLines = new String[SidebarNameIndex.MAX_ROWS];
+    private final SidebarLineParser.ParsedLine[] parsedRows = new SidebarLineParser.ParsedLine[SidebarNameIndex.MAX_ROWS];
+    private long indexedGeneration = -1L;
+
+    private final int[] reportOrder = new int[StatsStore.MAX_SLOTS];
+    private final StringBuilder reportBuilder = new StringBuilder(512);
+
+    private final DebugLog log = YogurtRecapMod.getDebugLog();
+    private final PerfMetrics.Histogram captureTime = YogurtRecapMod.getPerf().histogram("capture_stats",
+            "Parsing and matching one capture into a stats snapshot (analysis thread)");
+    private final PerfMetrics.Histogram reportTime = YogurtRecapMod.getPerf().histogram("report_combined_stats",
+            "Diffing, history recording and chat formatting of one round report (analysis thread)");
+    private final AllocationTracker.Site captureAlloc = YogurtRecapMod.getAllocations().site("capture_stats", false);
+    private final AllocationTracker.Site reportAlloc = YogurtRecapMod.getAllocations().site("report_combined_stats", false);
+    private final PerfMetrics.Counter reports = YogurtRecapMod.getPerf().counter("round_reports",
+            "Round reports produced");
+
+    // Track stats per player (slot-indexed primitive columns, pooled)
+    private final StatsStore stats = new StatsStore();
+    private StatsStore.Snapshot roundStartStats = stats.acquire();           // round N start
+    private final StatsStore.Snapshot lastWaveStartStats = stats.acquire();  // round N last-wave start
+    private final WaveCheckpoints checkpoints = new WaveCheckpoints();       // every round start / wave boundary / mark this game
+    private long gameId = 0L; // history key of the current game (wall-clock millis of its first round)
+
+    private PendingReport pendingReport = null; // either null or nextReport
+    private final PendingReport nextReport = new PendingReport();
+    private final PendingReport exitReport = new PendingReport();
+
+    // Reused across rounds; owns its two snapshots
+    private static final class PendingReport {
+        int round;
+        int durationMs;
+        final StatsStore.Snapshot roundStart = new StatsStore.Snapshot();
+        final StatsStore.Snapshot lastWaveStart = new StatsStore.Snapshot();
+
+        PendingReport set(int round, int durationMs, StatsStore.Snapshot roundStart, StatsStore.Snapshot lastWaveStart) {
+            this.round = round;
+            this.durationMs = durationMs;
+            this.roundStart.copyFrom(roundStart);
+            this.lastWaveStart.copyFrom(lastWaveStart);
+            return this;
+        }
+    }
+
+    // Checkpoints and slot names outlive the exit reset so the last game can still be inspected.
+    void newGame() {
+        reset();
+        checkpoints.clear();
+        stats.clearSlots();
+        gameId = System.currentTimeMillis();
+    }
+
+    void reset() {
+        roundStartStats.clear();
+        lastWaveStartStats.clear();
+        pendingReport = null;
+    }
+
+    /**
+     * A round title was shown. If {@code reportRound > 0} the round before it ended and is reported with the next
+     * round snapshot.
+     */
+    void beginRound(int reportRound, int durationMs) {
+        if (reportRound > 0 && pendingReport == null) {
+            pendingReport = nextReport.set(
+                    reportRound,
+                    durationMs,
+                    roundStartStats,      // start snapshot (captured at roundStart+delay)
+                    lastWaveStartStats    // last-wave snapshot (captured at last-wave start)
+            );
+            log.log(Level.DEBUG, "Created pendingReport for round {} (roundStartStats.size={}, lastWaveStartStats.size={})",
+                    pendingReport.round, pendingReport.roundStart.size(), pendingReport.lastWaveStart.size());
+        }
+        lastWaveStartStats.clear();
+    }
+
+    /**
+     * The delayed snapshot after a round title: the end of the pending report's round AND the start of {@code round}.
+     */
+    void roundSnapshot(RawCapture capture, int round) {
+        StatsStore.Snapshot snapshot = stats.acquire();
+        captureStats(capture, snapshot);
+        log.log(Level.DEBUG, "Captured delayed snapshot for roundTitle={} snapshot.size={}", round, snapshot.size());
+
+        // If we have a pending report, use this snapshot as the "endStats" for the previous round.
+        if (pendingReport != null) {
+            if (pendingReport.roundStart.isEmpty()) {
+                log.log(Level.INFO, "NOT reporting round {} because roundStart snapshot is empty. "
+                        + "Likely missed the start snapshot for that round.", pendingReport.round);
+            }
+            reportCombinedStats(pendingReport, snapshot, capture.map);
+            pendingReport = null;
+        }
+
+        // Also use this same snapshot as the start snapshot for the current round (round title + delay).
+        stats.release(roundStartStats);
+        roundStartStats = snapshot;
+        checkpoints.record(WaveCheckpoints.KIND_ROUND_START, round, 0, capture.timeMillis, snapshot);
+    }
+
+    /**
+     * A wave boundary. {@code lastWave} is set when this is the transition to the last wave at a plausible time;
+     * the capture then also becomes the last-wave snapshot.
+     */
+    void waveChanged(RawCapture capture, int round, int wave, boolean lastWave) {
+        // Every wave boundary becomes a checkpoint; the last-wave snapshot below reuses this capture.
+        StatsStore.Snapshot waveStats = stats.acquire();
+        captureStats(capture, waveStats);
+        checkpoints.record(WaveCheckpoints.KIND_WAVE, round, wave, capture.timeMillis, waveStats);
+
+        if (lastWave) {
+            // Don't capture if roundStartStats hasn't been captured yet (still in delay period)
+            if (!roundStartStats.isEmpty()) {
+                lastWaveStartStats.copyFrom(waveStats);
+                log.log(Level.DEBUG, "Captured lastWaveStartStats at wave={} for round={}", wave, round);
+            } else {
+                log.log(Level.INFO, "Skipped lastWaveStartStats capture: roundStartStats is empty, wave={}, round={}", wave, round);
+            }
+        }
+        stats.release(waveStats);
+    }
+
+    void mark(RawCapture capture, int round, int wave) {
+        StatsStore.Snapshot markStats = stats.acquire();
+        captureStats(capture, markStats);
+        long id = checkpoints.record(WaveCheckpoints.KIND_MARK, round, wave, capture.timeMillis, markStats);
+        stats.release(markStats);
+        post(new ChatComponentText(EnumChatFormatting.YELLOW + "[YogurtRecap] " +
+                EnumChatFormatting.GREEN + "Marked checkpoint #" + id + "."));
+    }
+
+    /**
+     * Left the game (or it ended) before the next round title: report with a best-effort end snapshot, then reset.
+     */
+    void exit(RawCapture capture, int round, int durationMs) {
+        try {
+            // If we don't have a start snapshot, we can't compute diffs reliably.
+            if (round <= 0 || roundStartStats.isEmpty()) {
+                return;
+            }
+
+            StatsStore.Snapshot endSnapshot = stats.acquire();
+            try {
+                captureStats(capture, endSnapshot);
+                if (endSnapshot.isEmpty()) {
+                    return;
+                }
+
+                if (pendingReport != null) {
+                    reportCombinedStats(pendingReport, endSnapshot, capture.map);
+                    pendingReport = null;
+                    return;
+                }
+
+                // No pendingReport means we never saw the next round title, so report the current round using its start snapshot.
+                reportCombinedStats(exitReport.set(round, durationMs, roundStartStats, lastWaveStartStats), endSnapshot, capture.map);
+            } finally {
+                stats.release(endSnapshot);
+            }
+        } catch (Exception ignored) {
+            // Never lose the worker if something goes wrong during exit flush.
+        } finally {
+            reset();
+        }
+    }
+
+    /**
+     * Per-wave kills/gold for {@code round}, one chat line per checkpoint interval (round start, each wave and
+     * any marks, up to the next round's start or the latest checkpoint).
+     */
+    void sendWaveBreakdown(int round) {
+        long first = -1L;
+        long end = -1L;
+        for (long id = checkpoints.oldest(); id <= checkpoints.latest(); id++) {
+            if (checkpoints.getRound(id) == round) {
+                if (first < 0) {
+                    first = id;
+                }
+                end = id;
+            } else if (first >= 0) {
+                end = id; // the next round's first checkpoint closes this round's last interval
+                break;
+            }
+        }
+        if (first < 0 || end <= first) {
+            post(new ChatComponentText(EnumChatFormatting.RED + "No wave checkpoints for round " + round + "."));
+            return;
+        }
+
+        List<String> lines = new ArrayList<>();
+        lines.add(EnumChatFormatting.YELLOW + "[YogurtRecap] " + EnumChatFormatting.WHITE + "Round " + round + " kills/gold per wave:");
+        long roundStartMillis = checkpoints.getTimeMillis(first);
+        StringBuilder line = new StringBuilder();
+        for (long from = first; from < end; from++) {
+            long to = from + 1;
+            line.setLength(0);
+            line.append(EnumChatFormatting.YELLOW).append(checkpointLabel(from))
+                    .append(EnumChatFormatting.GRAY).append(" (").append((checkpoints.getTimeMillis(from) - roundStartMillis) / 1000).append("s):");
+            for (int players = checkpoints.commonPlayers(from, to); players != 0; players &= players - 1) {
+                int slot = Integer.numberOfTrailingZeros(players);
+                line.append(' ').append(EnumChatFormatting.WHITE).append(stats.nameOf(slot)).append(' ')
+                        .append(EnumChatFormatting.RED).append(checkpoints.killsDelta(from, to, slot))
+                        .append(EnumChatFormatting.GRAY).append('/')
+                        .append(EnumChatFormatting.GOLD).append(checkpoints.goldDelta(from, to, slot));
+            }
+            lines.add(line.toString());
+        }
+        runOnClient(() -> {
+            for (String text : lines) {
+                PlayerUtils.sendMessage(text);
+            }
+        });
+    }
+
+    private String checkpointLabel(long id) {
+        switch (checkpoints.getKind(id)) {
+            case WaveCheckpoints.KIND_ROUND_START:
+                return "Start";
+            case WaveCheckpoints.KIND_WAVE:
+                return "Wave " + checkpoints.getWave(id);
+            default:
+                return "Mark";
+        }
+    }
+
+    private void captureStats(RawCapture capture, StatsStore.Snapshot storage) {
+        long start = PerfMetrics.start();
+        long allocStart = AllocationTracker.begin();
+        storage.clear();
+
+        refreshNameIndex(capture);
+        stats.beginCapture(capture.names, capture.playerCount);
+
+        boolean verbose = log.isEnabled(Level.TRACE);
+        for (int i = 0; i < capture.playerCount; i++) {
+            String canonicalUsername = capture.names[i];
+            int kills = capture.kills[i];
+
+            // Exact, rank-prefix, truncated and substring matches are all answered by the index;
+            // the tablist UUID -> row binding is memoized until the sidebar names change.
+            int row = nameIndex.rowFor(capture.ids[i], canonicalUsername);
+            int gold = row >= 0 ? nameIndex.getGold(row) : 0;
+
+            int slot = stats.slotOf(canonicalUsername);
+            if (slot < 0) {
+                slot = stats.reuseSlot(canonicalUsername);
+                if (slot < 0) {
+                    log.log(Level.WARN, "No free stats slot for {}, skipping", canonicalUsername);
+                    continue;
+                }
+                forgetSlot(slot);
+                log.log(Level.WARN, "Stats slots full, {} takes over slot {} of a player who left", canonicalUsername, slot);
+            }
+            storage.put(slot, kills, gold);
+
+            // Per-player lookups are only worth recording at TRACE
+            if (verbose) {
+                log.log(Level.TRACE, () -> "Gold lookup for " + canonicalUsername + ": found=" + gold
+                        + ", row=" + (row >= 0 ? nameIndex.getName(row) : "none") + ", sidebarRows=" + nameIndex.size());
+                if (row < 0) {
+                    log.log(Level.TRACE, () -> "Scoreboard entries: " + nameIndex);
+                }
+            }
+        }
+        captureAlloc.end(allocStart);
+        captureTime.stop(start);
+    }
+
+    // A reused slot now belongs to someone else: no snapshot may pair the old player's values with the new one's.
+    private void forgetSlot(int slot) {
+        roundStartStats.remove(slot);
+        lastWaveStartStats.remove(slot);
+        nextReport.roundStart.remove(slot);
+        nextReport.lastWaveStart.remove(slot);
+        checkpoints.remove(slot);
+    }
+
+    /**
+     * Feeds the captured sidebar gold rows into the name index. Skipped entirely while the sidebar generation hasn't
+     * moved; otherwise only rows whose text changed since the last indexed capture are re-parsed.
+     */
+    private void refreshNameIndex(RawCapture capture) {
+        if (capture.sidebarGeneration == indexedGeneration) {
+            return;
+        }
+        String[] lines = capture.sidebarLines;
+        int count = Math.min(lines.length, SidebarNameIndex.MAX_ROWS);
+
+        nameIndex.beginUpdate();
+        for (int i = 0; i < count; i++) {
+            String line = lines[i];
+            if (line != indexedLines[i] && (line == null || !line.equals(indexedLines[i]))) {
+                // Single-pass parse (separator, formatting codes and gold digits), memoized per raw line
+                parsedRows[i] = line == null ? null : lineParser.parse(line);
+                indexedLines[i] = line;
+            }
+            SidebarLineParser.ParsedLine parsed = parsedRows[i];
+            if (parsed != null) {
+                nameIndex.offer(parsed.name, parsed.gold);
+            }
+        }
+        for (int i = count; i < indexedLines.length; i++) {
+            indexedLines[i] = null;
+            parsedRows[i] = null;
+        }
+        if (nameIndex.endUpdate()) {
+            log.log(Level.DEBUG, () -> "Sidebar names changed, rebuilt name index: " + nameIndex);
+        }
+        indexedGeneration = capture.sidebarGeneration;
+    }
+
+    private void reportCombinedStats(PendingReport report, StatsStore.Snapshot endStats, int map) {
+        long start = PerfMetrics.start();
+        long allocStart = AllocationTracker.begin();
+        reportRound(report, endStats, map);
+        reportAlloc.end(allocStart);
+        reportTime.stop(start);
+    }
+
+    private void reportRound(PendingReport report, StatsStore.Snapshot endStats, int map) {
+        if (report == null || report.roundStart.isEmpty() || endStats == null || endStats.isEmpty()) {
+            log.log(Level.INFO, () -> "reportCombinedStats skipped (report null/empty start or endStats empty). "
+                    + "report=" + (report == null ? "null" : ("round=" + report.round + " startSize=" + report.roundStart.size()))
+                    + " endStatsSize=" + (endStats == null ? "null" : endStats.size()));
+            return;
+        }
+
+        reports.increment();
+
+        // Players present at both round start and end, by slot. Diffs are plain column subtraction.
+        int reported = endStats.present & report.roundStart.present;
+        int playerCount = 0;
+        int longestUsernameLength = 0;
+        for (int rows = reported; rows != 0; rows &= rows - 1) {
+            int slot = Integer.numberOfTrailingZeros(rows);
+            int roundKills = endStats.kills[slot] - report.roundStart.kills[slot];
+
+            // Insertion sort by full round kills (descending); stable for ties
+            int i = playerCount++;
+            while (i > 0 && roundKillsOf(report, endStats, reportOrder[i - 1]) < roundKills) {
+                reportOrder[i] = reportOrder[i - 1];
+                i--;
+            }
+            reportOrder[i] = slot;
+
+            // Find the longest username length in the team
+            longestUsernameLength = Math.max(longestUsernameLength, stats.nameOf(slot).length());
+        }
+
+        recordHistory(report, endStats, playerCount, map);
+
+        // Nothing else consumes the formatted report: don't build it at all while chat output is off.
+        if (!KillsGoldTracker.isChatMessagesEnabled()) {
+            return;
+        }
+
+        // Build single multi-line message
+        StringBuilder messageBuilder = reportBuilder;
+        messageBuilder.setLength(0);
+        messageBuilder.append(EnumChatFormatting.GOLD).append(EnumChatFormatting.STRIKETHROUGH).append("━━━━━━━━━━━━━━━━━━━━━\n");
+
+        // Format each player with aligned stats
+        for (int p = 0; p < playerCount; p++) {
+            int slot = reportOrder[p];
+            String playerName = stats.nameOf(slot);
+            int roundKills = endStats.kills[slot] - report.roundStart.kills[slot];
+            int roundGold = endStats.gold[slot] - report.roundStart.gold[slot];
+
+            // Get last wave stats if available
+            boolean hasLastWave = report.lastWaveStart.has(slot);
+            int lastWaveKills = hasLastWave ? endStats.kills[slot] - report.lastWaveStart.kills[slot] : 0;
+            int lastWaveGold = hasLastWave ? endStats.gold[slot] - report.lastWaveStart.gold[slot] : 0;
+
+            // Calculate alignment: spaces after colon = longestUsernameLength - currentUsernameLength + 1
+            // This ensures at least 1 space, and aligns all usernames to the same column
+            int usernameLength = playerName.length();
+            int spacesAfterColon = longestUsernameLength - usernameLength + 1;
+
+            // Build the line: PlayerName: [spaces] kills/gold | kills/gold
+            messageBuilder.append(EnumChatFormatting.WHITE).append(playerName).append(":");
+
+            // Add alignment spaces
+            for (int i = 0; i < spacesAfterColon; i++) {
+                messageBuilder.append(" ");
+            }
+
+            // Full round stats: kills/gold
+            messageBuilder.append(EnumChatFormatting.RED).append(roundKills);
+            messageBuilder.append(EnumChatFormatting.GRAY).append("/");
+            messageBuilder.append(EnumChatFormatting.GOLD).append(roundGold);
+
+            // Separator and last wave stats
+            messageBuilder.append("  "); // Two spaces before pipe
+            messageBuilder.append(EnumChatFormatting.WHITE).append("|");
+            messageBuilder.append("  "); // Two spaces after pipe
+
+            // Last wave stats: kills/gold
+            messageBuilder.append(EnumChatFormatting.RED).append(lastWaveKills);
+            messageBuilder.append(EnumChatFormatting.GRAY).append("/");
+            messageBuilder.append(EnumChatFormatting.GOLD).append(lastWaveGold);
+
+            messageBuilder.append("\n");
+        }
+
+        messageBuilder.append(EnumChatFormatting.GOLD).append(EnumChatFormatting.STRIKETHROUGH).append("━━━━━━━━━━━━━━━━━━━━━");
+
+        // Send as single message, built here and only handed to the client thread for display
+        post(new ChatComponentText(messageBuilder.toString()));
+    }
+
+    // Queues this round for the persistent history, one record per reported player (in report order).
+    // The persistence queue is fed from the client thread, so the records are handed over there.
+    private void recordHistory(PendingReport report, StatsStore.Snapshot endStats, int playerCount, int map) {
+        RoundRecord[] records = new RoundRecord[playerCount];
+        for (int p = 0; p < playerCount; p++) {
+            int slot = reportOrder[p];
+            boolean hasLastWave = report.lastWaveStart.has(slot);
+            RoundRecord record = new RoundRecord();
+            record.gameId = gameId;
+            record.map = map;
+            record.round = report.round;
+            record.durationMs = report.durationMs;
+            record.player = stats.nameOf(slot);
+            record.kills = endStats.kills[slot] - report.roundStart.kills[slot];
+            record.gold = endStats.gold[slot] - report.roundStart.gold[slot];
+            record.lastWaveKills = hasLastWave ? endStats.kills[slot] - report.lastWaveStart.kills[slot] : 0;
+            record.lastWaveGold = hasLastWave ? endStats.gold[slot] - report.lastWaveStart.gold[slot] : 0;
+            record.flags = hasLastWave ? RoundRecord.FLAG_HAS_LAST_WAVE : 0;
+            records[p] = record;
+        }
+        runOnClient(() -> {
+            for (RoundRecord record : records) {
+                if (!YogurtRecapMod.getPersistence().submit(() -> YogurtRecapMod.getHistory().append(record))) {
+                    log.log(Level.WARN, "Persistence queue full, dropped history record for {}", record.player);
+                }
+            }
+        });
+    }
+
+    private int roundKillsOf(PendingReport report, StatsStore.Snapshot endStats, int slot) {
+        return endStats.kills[slot] - report.roundStart.kills[slot];
+    }
+
+    private static void post(IChatComponent message) {
+        runOnClient(() -> PlayerUtils.sendMessage(message));
+    }
+
+    static void runOnClient(Runnable task) {
+        Minecraft mc = Minecraft.getMinecraft();
+        if (mc != null) {
+            mc.addScheduledTask(task);
+        }
+    }
+}
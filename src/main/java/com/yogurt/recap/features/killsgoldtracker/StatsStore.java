@@ -0,0 +1,157 @@
+package com.yogurt.recap.features.killsgoldtracker;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact per-player stats storage.
+ *
+ * Players get small integer slots for the lifetime of a game, and a {@link Snapshot} is just a pair of
+ * {@code int[]} columns (kills, gold) plus a presence bitmask, indexed by slot. Snapshots come from a pool,
+ * so capturing, copying and diffing (column subtraction) allocate nothing once the pool is warm.
+ *
+ * Once every slot is taken, a newcomer gets the slot of the player who has been off the tablist the longest
+ * ({@link #reuseSlot}); the caller must then drop that slot from every snapshot it still holds.
+ */
+final class StatsStore {
+
+    /** A Zombies team is 4 players; the rest leaves room for spectators / late tablist entries. */
+    static final int MAX_SLOTS = 16;
+
+    private final Map<String, Integer> slotByName = new HashMap<>();
+    private final String[] nameBySlot = new String[MAX_SLOTS];
+    private int slotCount = 0;
+
+    // Tablist presence, per capture
+    private final long[] lastSeen = new long[MAX_SLOTS]; // capture number the slot's player was last on the tablist
+    private long captureNumber = 0L;
+    private int onTablist = 0; // bit per slot whose player is in the current capture
+
+    private final ArrayDeque<Snapshot> pool = new ArrayDeque<>();
+
+    static final class Snapshot {
+        final int[] kills = new int[MAX_SLOTS];
+        final int[] gold = new int[MAX_SLOTS];
+        int present; // bit per slot captured in this snapshot
+
+        void clear() {
+            present = 0;
+        }
+
+        void put(int slot, int killsValue, int goldValue) {
+            kills[slot] = killsValue;
+            gold[slot] = goldValue;
+            present |= 1 << slot;
+        }
+
+        boolean has(int slot) {
+            return (present & (1 << slot)) != 0;
+        }
+
+        boolean isEmpty() {
+            return present == 0;
+        }
+
+        int size() {
+            return Integer.bitCount(present);
+        }
+
+        void remove(int slot) {
+            present &= ~(1 << slot);
+        }
+
+        Snapshot copyFrom(Snapshot other) {
+            System.arraycopy(other.kills, 0, kills, 0, MAX_SLOTS);
+            System.arraycopy(other.gold, 0, gold, 0, MAX_SLOTS);
+            present = other.present;
+            return this;
+        }
+    }
+
+    /**
+     * Slot for {@code name}, assigning the next free one on first sight; -1 if all slots are taken.
+     */
+    int slotOf(String name) {
+        Integer slot = slotByName.get(name);
+        if (slot != null) {
+            lastSeen[slot] = captureNumber;
+            return slot;
+        }
+        if (slotCount >= MAX_SLOTS) {
+            return -1;
+        }
+        return assign(slotCount++, name);
+    }
+
+    /**
+     * Starts a capture of the tablist players {@code names[0, count)}: their slots are kept from {@link #reuseSlot}.
+     */
+    void beginCapture(String[] names, int count) {
+        captureNumber++;
+        onTablist = 0;
+        for (int i = 0; i < count; i++) {
+            Integer slot = slotByName.get(names[i]);
+            if (slot != null) {
+                onTablist |= 1 << slot;
+            }
+        }
+    }
+
+    /**
+     * All slots are taken: hands {@code name} the slot of the player who left the tablist the longest ago, or -1 if
+     * every slot's player is in the current capture. The caller must remove the returned slot from its snapshots.
+     */
+    int reuseSlot(String name) {
+        int best = -1;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if ((onTablist & (1 << slot)) == 0 && (best < 0 || lastSeen[slot] < lastSeen[best])) {
+                best = slot;
+            }
+        }
+        if (best < 0) {
+            return -1;
+        }
+        slotByName.remove(nameBySlot[best]);
+        return assign(best, name);
+    }
+
+    private int assign(int slot, String name) {
+        nameBySlot[slot] = name;
+        slotByName.put(name, slot);
+        onTablist |= 1 << slot;
+        lastSeen[slot] = captureNumber;
+        return slot;
+    }
+
+    String nameOf(int slot) {
+        return nameBySlot[slot];
+    }
+
+    /**
+     * Forgets every slot assignment. Only valid once no snapshot refers to the old slots (new game).
+     */
+    void clearSlots() {
+        slotByName.clear();
+        Arrays.fill(nameBySlot, null);
+        slotCount = 0;
+        onTablist = 0;
+    }
+
+    /** An empty snapshot from the pool. */
+    Snapshot acquire() {
+        Snapshot snapshot = pool.poll();
+        if (snapshot == null) {
+            snapshot = new Snapshot();
+        }
+        snapshot.clear();
+        return snapshot;
+    }
+
+    void release(Snapshot snapshot) {
+        if (snapshot != null) {
+            pool.push(snapshot);
+        }
+    }
+}
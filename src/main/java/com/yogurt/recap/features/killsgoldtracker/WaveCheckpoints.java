@@ -0,0 +1,101 @@
+package com.yogurt.recap.features.killsgoldtracker;
+
+/**
+ * Fixed-capacity ring of per-player stats checkpoints: one per round start, one per wave boundary, plus user marks.
+ *
+ * Every checkpoint is stored as primitive columns (round, wave, kind, time, and kills/gold per stats slot), so
+ * the ring never allocates after construction. Checkpoints are addressed by a monotonically increasing id; the
+ * newest {@link #CAPACITY} ids stay available and the kills/gold delta between any two of them is O(1).
+ */
+final class WaveCheckpoints {
+
+    /** Enough for a full 105-round Alien Arcadium game (~6 waves per round) plus marks. */
+    static final int CAPACITY = 1024;
+
+    static final byte KIND_ROUND_START = 0;
+    static final byte KIND_WAVE = 1;
+    static final byte KIND_MARK = 2;
+
+    private static final int SLOTS = StatsStore.MAX_SLOTS;
+
+    private final int[] rounds = new int[CAPACITY];
+    private final int[] waves = new int[CAPACITY];
+    private final byte[] kinds = new byte[CAPACITY];
+    private final long[] timesMillis = new long[CAPACITY];
+    private final int[] present = new int[CAPACITY];
+    private final int[] kills = new int[CAPACITY * SLOTS];
+    private final int[] gold = new int[CAPACITY * SLOTS];
+
+    private long nextId = 0L;
+
+    /**
+     * Copies {@code stats} (captured at {@code timeMillis}) into the ring and returns the new checkpoint's id.
+     */
+    long record(byte kind, int round, int wave, long timeMillis, StatsStore.Snapshot stats) {
+        long id = nextId++;
+        int index = index(id);
+        rounds[index] = round;
+        waves[index] = wave;
+        kinds[index] = kind;
+        timesMillis[index] = timeMillis;
+        present[index] = stats.present;
+        System.arraycopy(stats.kills, 0, kills, index * SLOTS, SLOTS);
+        System.arraycopy(stats.gold, 0, gold, index * SLOTS, SLOTS);
+        return id;
+    }
+
+    void clear() {
+        nextId = 0L;
+    }
+
+    /** Drops {@code slot} from every checkpoint (its player left and the slot was handed to someone else). */
+    void remove(int slot) {
+        int keep = ~(1 << slot);
+        for (int i = 0; i < CAPACITY; i++) {
+            present[i] &= keep;
+        }
+    }
+
+    /** Id of the newest checkpoint, or -1 if there is none. */
+    long latest() {
+        return nextId - 1;
+    }
+
+    /** Oldest id still held by the ring. */
+    long oldest() {
+        return Math.max(0L, nextId - CAPACITY);
+    }
+
+    int getRound(long id) {
+        return rounds[index(id)];
+    }
+
+    int getWave(long id) {
+        return waves[index(id)];
+    }
+
+    byte getKind(long id) {
+        return kinds[index(id)];
+    }
+
+    long getTimeMillis(long id) {
+        return timesMillis[index(id)];
+    }
+
+    int killsDelta(long fromId, long toId, int slot) {
+        return kills[index(toId) * SLOTS + slot] - kills[index(fromId) * SLOTS + slot];
+    }
+
+    int goldDelta(long fromId, long toId, int slot) {
+        return gold[index(toId) * SLOTS + slot] - gold[index(fromId) * SLOTS + slot];
+    }
+
+    /** Slots captured in both checkpoints, as a bitmask. */
+    int commonPlayers(long fromId, long toId) {
+        return present[index(fromId)] & present[index(toId)];
+    }
+
+    private static int index(long id) {
+        return (int) (id % CAPACITY);
+    }
+}
@@ -1,64 +1,72 @@
 package com.yogurt.recap.features.spawntimes;
 
 import com.yogurt.recap.YogurtRecapMod;
+import com.yogurt.recap.features.killsgoldtracker.KillsGoldTracker;
+import com.yogurt.recap.handler.TickContext;
 import com.yogurt.recap.utils.GameUtils;
-import com.yogurt.recap.utils.JavaUtils;
-import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
-import net.minecraftforge.fml.common.gameevent.TickEvent;
 
 /**
  * Minimal subset of ShowSpawnTime's SpawnTimes: only what's needed for KillsGoldTracker
  * (estimating current wave by elapsed time since round start + per-map round timing tables).
+ *
+ * Instead of recomputing the wave every tick, the next wave boundary of the round is kept as a deadline
+ * (ms since the round title). Ticks before it cost one comparison; the first tick past it advances the wave
+ * and notifies {@link KillsGoldTracker#onWaveChanged(int, int, int)}.
  */
 public class SpawnTimes {
+    private static final int MAX_ROUND_MS = 300000; // 5 minutes: anything longer is a stale timer
+
     public int currentRound = 0;
     private int currentWave = 0;
-    private int[] roundTimes = new int[0];
+    private int nextWaveMillis = -1; // deadline for currentWave + 1, -1 if none (last wave reached / no timing data)
 
     public void setCurrentRound(int round) {
         this.currentRound = round;
-        this.roundTimes = GameUtils.getRoundTimes(currentRound);
         this.currentWave = 0;
+        scheduleNextWave();
     }
 
+    /**
+     * Match ShowSpawnTime behavior: wave is the insert position (0..waveCount).
+     * When it reaches waveCount, the "last wave has spawned" condition becomes true.
+     */
     public int getCurrentWave() {
+        return currentRound > 0 ? currentWave : 0;
+    }
+
+    private void scheduleNextWave() {
+        // -1 when there is no next wave, or the map (and so the table) isn't known yet
+        nextWaveMillis = currentRound > 0 ? GameUtils.getWaveMillis(currentRound, currentWave + 1) : -1;
+    }
+
+    /**
+     * Wave stage of the {@link TickPipeline} (Zombies ticks only); runs after the round timer.
+     */
+    public void onTick(TickContext ctx) {
         if (currentRound <= 0) {
-            return 0;
-        }
-        if (roundTimes.length == 0) {
-            roundTimes = GameUtils.getRoundTimes(currentRound);
-        }
-        if (roundTimes.length == 0) {
-            return 0; // No timing data for this round
-        }
-        int[] roundTicks = roundTimes.clone();
-        for (int i = 0; i < roundTicks.length; i++) {
-            roundTicks[i] *= 1000;
+            return;
         }
-        int elapsedMs = YogurtRecapMod.getRoundTimer().getElapsedMs();
-        // Safety: if elapsed time is negative or suspiciously large, return 0
-        if (elapsedMs < 0 || elapsedMs > 300000) { // 5 minutes max
-            return 0;
+        if (nextWaveMillis < 0) {
+            // Map detection may finish after the round title; pick the table up once it does.
+            if (currentWave < GameUtils.getWaveCount(currentRound)) {
+                scheduleNextWave();
+            }
+            if (nextWaveMillis < 0) {
+                return;
+            }
         }
-        // Match ShowSpawnTime behavior: wave is the insert position (0..roundTimes.length).
-        // When it reaches roundTimes.length, the "last wave has spawned" condition becomes true.
-        currentWave = JavaUtils.findInsertPosition(roundTicks, elapsedMs);
-        // Clamp to valid range
-        if (currentWave < 0) currentWave = 0;
-        if (currentWave > roundTimes.length) currentWave = roundTimes.length;
-        return currentWave;
-    }
 
-    @SubscribeEvent
-    public void onClientTick(TickEvent.ClientTickEvent event) {
-        if (event.phase != TickEvent.Phase.START) {
+        int elapsedMs = YogurtRecapMod.getRoundTimer().getElapsedMs();
+        // Same insert-position semantics as before: a wave counts once elapsed is strictly past its boundary.
+        if (elapsedMs <= nextWaveMillis || elapsedMs > MAX_ROUND_MS) {
             return;
         }
-        // Keep cached wave reasonably fresh, but don't do work if we haven't started.
-        if (currentRound > 0) {
-            getCurrentWave();
+
+        int oldWave = currentWave;
+        currentWave = GameUtils.getWave(currentRound, elapsedMs); // may skip waves after a lag spike
+        scheduleNextWave();
+        if (currentWave != oldWave) {
+            KillsGoldTracker.onWaveChanged(currentRound, oldWave, currentWave);
         }
     }
 }
-
-
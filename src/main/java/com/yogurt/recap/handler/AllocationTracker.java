@@ -0,0 +1,221 @@
+package com.yogurt.recap.handler;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in heap allocation accounting around the mod's entry points, using HotSpot's per-thread allocated-bytes counter
+ * ({@code com.sun.management.ThreadMXBean#getThreadAllocatedBytes}).
+ *
+ * Same shape as {@link PerfMetrics}: {@code long begin = AllocationTracker.begin(); ...; site.end(begin);}, with
+ * {@link #begin()} returning -1 (and {@code end} doing nothing) while tracking is off. Each site keeps its total for
+ * the current and the previous round and its largest single call; client-thread sites also add up into a per-tick
+ * total whose maximum is kept per round. Sites are written by one thread each and read from the client thread.
+ */
+public class AllocationTracker {
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private static volatile boolean enabled;
+
+    private final List<Site> sites = new CopyOnWriteArrayList<>();
+    private long tickBytes; // client thread
+    private long roundMaxTickBytes;
+    private long lastRoundMaxTickBytes;
+    private long maxTickBytes;
+    private int round;
+    private int lastRound;
+
+    public static final class Site {
+        private final String name;
+        private final boolean clientThread;
+        private final AllocationTracker owner;
+        private final AtomicLong roundBytes = new AtomicLong();
+        private volatile long lastRoundBytes;
+        private final AtomicLong totalBytes = new AtomicLong();
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong maxCallBytes = new AtomicLong();
+
+        private Site(AllocationTracker owner, String name, boolean clientThread) {
+            this.owner = owner;
+            this.name = name;
+            this.clientThread = clientThread;
+        }
+
+        /**
+         * Attributes the bytes allocated by this thread since {@code begin} (from {@link AllocationTracker#begin()}).
+         */
+        public void end(long begin) {
+            if (begin < 0L) {
+                return;
+            }
+            long bytes = allocatedBytes() - begin;
+            if (bytes < 0L) {
+                return;
+            }
+            roundBytes.addAndGet(bytes);
+            totalBytes.lazySet(totalBytes.get() + bytes); // single writer
+            calls.lazySet(calls.get() + 1);
+            if (bytes > maxCallBytes.get()) {
+                maxCallBytes.lazySet(bytes);
+            }
+            if (clientThread) {
+                owner.tickBytes += bytes;
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getRoundBytes() {
+            return roundBytes.get();
+        }
+
+        public long getLastRoundBytes() {
+            return lastRoundBytes;
+        }
+
+        public long getTotalBytes() {
+            return totalBytes.get();
+        }
+
+        public long getCalls() {
+            return calls.get();
+        }
+
+        public long getMaxCallBytes() {
+            return maxCallBytes.get();
+        }
+
+        private void rollRound() {
+            lastRoundBytes = roundBytes.getAndSet(0L);
+        }
+
+        private void reset() {
+            roundBytes.set(0L);
+            lastRoundBytes = 0L;
+            totalBytes.set(0L);
+            calls.set(0L);
+            maxCallBytes.set(0L);
+        }
+    }
+
+    /**
+     * Bytes allocated so far by the calling thread, or -1 while tracking is off.
+     */
+    public static long begin() {
+        return enabled ? allocatedBytes() : -1L;
+    }
+
+    public static boolean isSupported() {
+        return THREADS != null;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return false if the JVM can't account allocations per thread (tracking stays off)
+     */
+    public static boolean setEnabled(boolean on) {
+        if (on && !isSupported()) {
+            return false;
+        }
+        if (on) {
+            THREADS.setThreadAllocatedMemoryEnabled(true);
+        }
+        enabled = on;
+        return true;
+    }
+
+    /**
+     * @param clientThread whether the site runs on the client thread (and so counts towards the per-tick total)
+     */
+    public Site site(String name, boolean clientThread) {
+        Site site = new Site(this, name, clientThread);
+        sites.add(site);
+        return site;
+    }
+
+    public List<Site> getSites() {
+        return sites;
+    }
+
+    /**
+     * Starts a new accounting round when the Zombies round changes. Client thread only.
+     */
+    public void onRoundStart(int newRound) {
+        if (newRound == round) {
+            return;
+        }
+        for (Site site : sites) {
+            site.rollRound();
+        }
+        lastRound = round;
+        lastRoundMaxTickBytes = roundMaxTickBytes;
+        roundMaxTickBytes = 0L;
+        round = newRound;
+    }
+
+    public int getRound() {
+        return round;
+    }
+
+    public int getLastRound() {
+        return lastRound;
+    }
+
+    public long getRoundMaxTickBytes() {
+        return roundMaxTickBytes;
+    }
+
+    public long getLastRoundMaxTickBytes() {
+        return lastRoundMaxTickBytes;
+    }
+
+    public long getMaxTickBytes() {
+        return maxTickBytes;
+    }
+
+    public void reset() {
+        for (Site site : sites) {
+            site.reset();
+        }
+        tickBytes = 0L;
+        roundMaxTickBytes = 0L;
+        lastRoundMaxTickBytes = 0L;
+        maxTickBytes = 0L;
+    }
+
+    /**
+     * Last stage of the {@link TickPipeline}: closes this tick's client-thread total.
+     */
+    public void onTick(TickContext ctx) {
+        if (tickBytes == 0L) {
+            return;
+        }
+        roundMaxTickBytes = Math.max(roundMaxTickBytes, tickBytes);
+        maxTickBytes = Math.max(maxTickBytes, tickBytes);
+        tickBytes = 0L;
+    }
+
+    private static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        try {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean
+                    && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+                return (com.sun.management.ThreadMXBean) bean;
+            }
+        } catch (LinkageError e) {
+            // Not a HotSpot-compatible JVM.
+        }
+        return null;
+    }
+}
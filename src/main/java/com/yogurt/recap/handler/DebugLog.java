@@ -0,0 +1,287 @@
+package com.yogurt.recap.handler;
+
+import com.yogurt.recap.YogurtRecapMod;
+import com.yogurt.recap.utils.PlayerUtils;
+import net.minecraft.client.Minecraft;
+import net.minecraft.util.EnumChatFormatting;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Level-gated diagnostics log kept in a preallocated ring of fixed-size records.
+ *
+ * A record is a template with {@code {}} placeholders plus up to one reference and three primitive arguments, so
+ * logging only stores a few fields and nothing is formatted until the record is read. Messages that need real
+ * formatting go through a {@link Supplier}, which is only called when the level is enabled. Any thread may log:
+ * a writer claims a sequence number and stamps the slot once its fields are written, and readers skip slots
+ * that are mid-write or already overwritten.
+ *
+ * Records are read back by {@code /recapdebug dump} (written to {@code config/yogurtrecap/debug} on the
+ * {@link PersistenceWriter}) and, optionally, by a rate-limited chat echo that runs once per client tick.
+ */
+public class DebugLog {
+    private static final int CAPACITY = 4096; // power of two
+    private static final int MASK = CAPACITY - 1;
+
+    public enum Level {
+        TRACE, DEBUG, INFO, WARN, OFF
+    }
+
+    private volatile Level level = Level.INFO;
+    private volatile boolean chatEcho = false;
+    private volatile int chatLinesPerSecond = 4;
+    private File directory;
+
+    private final AtomicLong next = new AtomicLong();
+    private final AtomicLongArray stamps = new AtomicLongArray(CAPACITY); // id + 1 once slot is complete, 0 while writing
+    private final long[] times = new long[CAPACITY];
+    private final Level[] levels = new Level[CAPACITY];
+    private final String[] threads = new String[CAPACITY];
+    private final String[] templates = new String[CAPACITY];
+    private final Object[] refs = new Object[CAPACITY];
+    private final long[] args = new long[CAPACITY * 3];
+    private final byte[] argCounts = new byte[CAPACITY]; // see append()
+
+    // Chat echo (client thread)
+    private long echoed = 0L;
+    private float echoBudget = 0F;
+    private int suppressed = 0;
+
+    public boolean isEnabled(Level at) {
+        return at.ordinal() >= level.ordinal() && at != Level.OFF;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public void setLevel(Level level) {
+        this.level = level;
+    }
+
+    public boolean isChatEcho() {
+        return chatEcho;
+    }
+
+    /**
+     * Turns the chat echo on or off; it only shows records logged from now on. Client thread only.
+     */
+    public void setChatEcho(boolean on) {
+        echoed = next.get();
+        suppressed = 0;
+        chatEcho = on;
+    }
+
+    public void configure(File configDir, Level level, boolean chatEcho, int chatLinesPerSecond) {
+        this.directory = new File(configDir, YogurtRecapMod.MODID + File.separator + "debug");
+        this.level = level;
+        this.chatLinesPerSecond = Math.max(1, chatLinesPerSecond);
+        setChatEcho(chatEcho);
+    }
+
+    public void log(Level at, String message) {
+        if (isEnabled(at)) {
+            append(at, message, null, 0, 0L, 0L, 0L);
+        }
+    }
+
+    public void log(Level at, String template, long a) {
+        if (isEnabled(at)) {
+            append(at, template, null, 1, a, 0L, 0L);
+        }
+    }
+
+    public void log(Level at, String template, long a, long b) {
+        if (isEnabled(at)) {
+            append(at, template, null, 2, a, b, 0L);
+        }
+    }
+
+    public void log(Level at, String template, long a, long b, long c) {
+        if (isEnabled(at)) {
+            append(at, template, null, 3, a, b, c);
+        }
+    }
+
+    /**
+     * {@code ref} fills the first placeholder, then the primitive arguments. It is only turned into text when the
+     * record is read (possibly on another thread), so pass immutable values such as strings.
+     */
+    public void log(Level at, String template, Object ref) {
+        if (isEnabled(at)) {
+            append(at, template, ref, -1, 0L, 0L, 0L);
+        }
+    }
+
+    public void log(Level at, String template, Object ref, long a) {
+        if (isEnabled(at)) {
+            append(at, template, ref, -2, a, 0L, 0L);
+        }
+    }
+
+    public void log(Level at, String template, Object ref, long a, long b) {
+        if (isEnabled(at)) {
+            append(at, template, ref, -3, a, b, 0L);
+        }
+    }
+
+    public void log(Level at, Supplier<String> message) {
+        if (isEnabled(at)) {
+            append(at, message.get(), null, 0, 0L, 0L, 0L);
+        }
+    }
+
+    // argCount: n >= 0 primitive arguments, or -(1 + n) for a reference followed by n primitives
+    private void append(Level at, String template, Object ref, int argCount, long a, long b, long c) {
+        long id = next.getAndIncrement();
+        int slot = (int) id & MASK;
+        stamps.set(slot, 0L);
+        times[slot] = System.currentTimeMillis();
+        levels[slot] = at;
+        threads[slot] = Thread.currentThread().getName();
+        templates[slot] = template;
+        refs[slot] = ref;
+        args[slot * 3] = a;
+        args[slot * 3 + 1] = b;
+        args[slot * 3 + 2] = c;
+        argCounts[slot] = (byte) argCount;
+        stamps.set(slot, id + 1);
+    }
+
+    /**
+     * Formats record {@code id} into {@code out}; false if it was overwritten or is still being written.
+     */
+    private boolean format(long id, StringBuilder out, boolean withHeader) {
+        int slot = (int) id & MASK;
+        if (stamps.get(slot) != id + 1) {
+            return false;
+        }
+        int start = out.length();
+        if (withHeader) {
+            out.append(String.format("%tT.%<tL", times[slot])).append(' ')
+                    .append(levels[slot]).append(" [").append(threads[slot]).append("] ");
+        }
+        String template = templates[slot];
+        Object ref = refs[slot];
+        int argCount = argCounts[slot];
+        boolean hasRef = argCount < 0;
+        int primitives = hasRef ? -argCount - 1 : argCount;
+        int used = 0;
+        int from = 0;
+        int at;
+        while (template != null && (at = template.indexOf("{}", from)) >= 0) {
+            out.append(template, from, at);
+            if (hasRef) {
+                out.append(ref);
+                hasRef = false;
+            } else if (used < primitives) {
+                out.append(args[slot * 3 + used++]);
+            } else {
+                out.append("{}");
+            }
+            from = at + 2;
+        }
+        if (template != null) {
+            out.append(template, from, template.length());
+        }
+        if (stamps.get(slot) != id + 1) {
+            out.setLength(start); // overwritten while we were reading it
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes every record still in the ring to a new file on the persistence writer. Client thread only.
+     *
+     * @return false if the writer queue is full
+     */
+    public boolean dump() {
+        long last = next.get();
+        long first = Math.max(0L, last - CAPACITY);
+        String[] lines = new String[(int) (last - first)];
+        StringBuilder line = new StringBuilder(128);
+        int count = 0;
+        for (long id = first; id < last; id++) {
+            line.setLength(0);
+            if (format(id, line, true)) {
+                lines[count++] = line.toString();
+            }
+        }
+        File dir = directory;
+        File file = new File(dir, "debug-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".log");
+        int written = count;
+        return YogurtRecapMod.getPersistence().submit(() -> {
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Could not create " + dir);
+            }
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+                for (int i = 0; i < written; i++) {
+                    out.write(lines[i]);
+                    out.write('\n');
+                }
+            }
+            Minecraft mc = Minecraft.getMinecraft();
+            if (mc != null) {
+                mc.addScheduledTask(() -> PlayerUtils.sendMessage(EnumChatFormatting.YELLOW + "[YogurtRecap] "
+                        + EnumChatFormatting.WHITE + "Wrote " + written + " debug records to " + file.getPath()));
+            }
+        });
+    }
+
+    /**
+     * Output stage of the {@link TickPipeline}: the rate-limited chat echo.
+     */
+    public void onTick(TickContext ctx) {
+        if (!chatEcho) {
+            return;
+        }
+        int rate = chatLinesPerSecond;
+        echoBudget = Math.min(rate, echoBudget + rate / 20F);
+        long last = next.get();
+        if (echoed == last) {
+            return;
+        }
+        if (last - echoed > CAPACITY) {
+            suppressed += (int) (last - echoed - CAPACITY);
+            echoed = last - CAPACITY;
+        }
+        StringBuilder line = new StringBuilder(128);
+        while (echoed < last) {
+            if (echoBudget < 1F) {
+                suppressed += (int) (last - echoed);
+                echoed = last;
+                break;
+            }
+            long stamp = stamps.get((int) echoed & MASK);
+            if (stamp < echoed + 1) {
+                break; // claimed but not written yet: pick it up next tick
+            }
+            line.setLength(0);
+            if (stamp > echoed + 1 || !format(echoed, line, false)) {
+                suppressed++; // already overwritten
+                echoed++;
+                continue;
+            }
+            if (suppressed > 0) {
+                PlayerUtils.sendMessage(EnumChatFormatting.DARK_GRAY + "[DEBUG] ... " + suppressed
+                        + " lines not shown (see /recapdebug dump)");
+                suppressed = 0;
+            }
+            PlayerUtils.sendMessage(EnumChatFormatting.DARK_GRAY + "[" + levels[(int) echoed & MASK] + "] " + line);
+            echoBudget -= 1F;
+            echoed++;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.yogurt.recap.handler;
+
+import com.yogurt.recap.YogurtRecapMod;
+import com.yogurt.recap.features.killsgoldtracker.KillsGoldTracker;
+import com.yogurt.recap.utils.TitleClassifier;
+import net.minecraft.client.Minecraft;
+import net.minecraft.util.IChatComponent;
+
+/**
+ * Round start / end-of-game titles, recognised where the {@code S45PacketTitle} arrives.
+ *
+ * The packet hook runs on the Netty thread, before vanilla re-queues the packet for the client thread: the title is
+ * classified and stamped with {@link System#nanoTime()} there, and only game titles are handed to the client thread
+ * with that stamp. The round clock therefore starts when the packet arrived, not when the client thread got around
+ * to displaying it.
+ *
+ * Ported conceptually from ShowSpawnTime's {@code MixinGuiIngame#displayTitle} injection.
+ */
+public final class GameTitleHandler {
+    private GameTitleHandler() {}
+
+    private static final PerfMetrics.Histogram CLASSIFY_TIME = YogurtRecapMod.getPerf().histogram("title_packet",
+            "S45PacketTitle classification on the network thread");
+    private static final PerfMetrics.Histogram HOOK_TIME = YogurtRecapMod.getPerf().histogram("title_hook",
+            "Game title handling on the client thread (round start / end of game)");
+    private static final AllocationTracker.Site HOOK_ALLOC = YogurtRecapMod.getAllocations().site("title_hook", true);
+
+    /**
+     * A TITLE-type title packet arrived. Netty thread.
+     */
+    public static void onTitlePacket(IChatComponent message) {
+        long arrivedNanos = System.nanoTime();
+        if (message == null) {
+            return;
+        }
+        long start = PerfMetrics.start();
+        int kind = TitleClassifier.classify(message.getFormattedText());
+        CLASSIFY_TIME.stop(start);
+        if (kind == TitleClassifier.NONE) {
+            return;
+        }
+        Minecraft.getMinecraft().addScheduledTask(() -> onGameTitle(kind, arrivedNanos));
+    }
+
+    // Client thread.
+    private static void onGameTitle(int kind, long arrivedNanos) {
+        long start = PerfMetrics.start();
+        long allocStart = AllocationTracker.begin();
+
+        // End-of-game titles (victory / game over): treat as round=0 to force a final report for the previous round.
+        // (Original ShowSpawnTime also triggers logic on win/gameover titles.)
+        int round = kind > 0 ? kind : 0;
+
+        // Reset timer and update cached round for wave estimation.
+        // Only start timing when an actual round starts.
+        if (round > 0) {
+            YogurtRecapMod.getRoundTimer().onRoundStart(arrivedNanos);
+            YogurtRecapMod.getSpawnTimes().setCurrentRound(round);
+        }
+
+        YogurtRecapMod.getAllocations().onRoundStart(round);
+
+        // Inform tracker (schedules report for prior round + captures round start snapshot after a delay).
+        KillsGoldTracker.onRoundStart(round);
+
+        HOOK_ALLOC.end(allocStart);
+        HOOK_TIME.stop(start);
+    }
+}
@@ -0,0 +1,294 @@
+package com.yogurt.recap.handler;
+
+import com.yogurt.recap.YogurtRecapMod;
+import com.yogurt.recap.config.ModConfig;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Hot-path instrumentation: named counters and fixed-bucket latency histograms.
+ *
+ * A timed section is {@code long start = PerfMetrics.start(); ...; histogram.stop(start);}. While metrics are off
+ * {@link #start()} returns 0 without reading the clock and {@code stop} returns on that, so the cost is a field read
+ * and a branch. Recording never allocates: a histogram is 40 power-of-two nanosecond buckets plus sum and max.
+ * Each histogram / counter is expected to be written from one thread (the client thread or the analysis worker)
+ * and can be read from any.
+ *
+ * With a snapshot interval configured, the client thread renders an OpenMetrics text exposition periodically and the
+ * {@link PersistenceWriter} appends it to {@code config/yogurtrecap/metrics/perf.txt}, rolling the file over to
+ * {@code perf.1.txt} once it reaches the configured size.
+ */
+public class PerfMetrics {
+    private static final String PREFIX = YogurtRecapMod.MODID + "_";
+
+    private static volatile boolean enabled;
+
+    private final List<Histogram> histograms = new CopyOnWriteArrayList<>();
+    private final List<Counter> counters = new CopyOnWriteArrayList<>();
+    private TickScheduler.Task snapshotTask; // created on configure: the scheduler is constructed after this
+    private File file;
+
+    /**
+     * Latency histogram over power-of-two nanosecond buckets: bucket {@code i} counts durations below {@code 2^i} ns
+     * (and at least {@code 2^(i-1)}); the last bucket also takes everything longer.
+     */
+    public static final class Histogram {
+        static final int BUCKETS = 40; // 2^39 ns is ~9 minutes
+
+        private final String name;
+        private final String help;
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLong sumNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private Histogram(String name, String help) {
+            this.name = name;
+            this.help = help;
+        }
+
+        /**
+         * Records the time since {@code start} (from {@link PerfMetrics#start()}); no-op if that was 0.
+         */
+        public void stop(long start) {
+            if (start != 0L) {
+                record(System.nanoTime() - start);
+            }
+        }
+
+        void record(long nanos) {
+            if (nanos < 0L) {
+                nanos = 0L;
+            }
+            int bucket = Math.min(64 - Long.numberOfLeadingZeros(nanos), BUCKETS - 1);
+            // Single writer: plain read-modify-write, published with ordered stores.
+            buckets.lazySet(bucket, buckets.get(bucket) + 1);
+            sumNanos.lazySet(sumNanos.get() + nanos);
+            if (nanos > maxNanos.get()) {
+                maxNanos.lazySet(nanos);
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            long count = 0L;
+            for (int i = 0; i < BUCKETS; i++) {
+                count += buckets.get(i);
+            }
+            return count;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        /**
+         * Upper bound of the bucket holding quantile {@code q} (0..1), capped at the recorded max; 0 if empty.
+         */
+        public long getQuantileNanos(double q) {
+            long count = getCount();
+            if (count == 0L) {
+                return 0L;
+            }
+            long rank = Math.max(1L, (long) Math.ceil(q * count));
+            long seen = 0L;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), getMaxNanos());
+                }
+            }
+            return getMaxNanos();
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0L);
+            }
+            sumNanos.set(0L);
+            maxNanos.set(0L);
+        }
+
+        private static long upperBound(int bucket) {
+            return 1L << bucket;
+        }
+    }
+
+    public static final class Counter {
+        private final String name;
+        private final String help;
+        private final AtomicLong value = new AtomicLong();
+
+        private Counter(String name, String help) {
+            this.name = name;
+            this.help = help;
+        }
+
+        public void increment() {
+            if (enabled) {
+                value.lazySet(value.get() + 1); // single writer
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long get() {
+            return value.get();
+        }
+
+        void reset() {
+            value.set(0L);
+        }
+    }
+
+    /**
+     * Start of a timed section: the current {@link System#nanoTime()}, or 0 while metrics are disabled.
+     */
+    public static long start() {
+        if (!enabled) {
+            return 0L;
+        }
+        long now = System.nanoTime();
+        return now != 0L ? now : 1L;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /**
+     * @param name metric name in snake_case, without the mod prefix or unit suffix
+     */
+    public Histogram histogram(String name, String help) {
+        Histogram histogram = new Histogram(name, help);
+        histograms.add(histogram);
+        return histogram;
+    }
+
+    public Counter counter(String name, String help) {
+        Counter counter = new Counter(name, help);
+        counters.add(counter);
+        return counter;
+    }
+
+    public List<Histogram> getHistograms() {
+        return histograms;
+    }
+
+    public List<Counter> getCounters() {
+        return counters;
+    }
+
+    public void reset() {
+        for (Histogram histogram : histograms) {
+            histogram.reset();
+        }
+        for (Counter counter : counters) {
+            counter.reset();
+        }
+    }
+
+    /**
+     * Applies the config: enables recording and starts the periodic file snapshots if an interval is set.
+     */
+    public void configure(File configDir) {
+        setEnabled(ModConfig.PERF_METRICS_ENABLED);
+        file = new File(configDir, YogurtRecapMod.MODID + File.separator + "metrics" + File.separator + "perf.txt");
+        if (snapshotTask == null) {
+            snapshotTask = YogurtRecapMod.getScheduler().newTask(this::snapshot);
+        }
+        if (ModConfig.PERF_METRICS_SNAPSHOT_SECONDS > 0) {
+            YogurtRecapMod.getScheduler().schedule(snapshotTask, ModConfig.PERF_METRICS_SNAPSHOT_SECONDS * 20);
+        } else {
+            YogurtRecapMod.getScheduler().cancel(snapshotTask);
+        }
+    }
+
+    private void snapshot() {
+        YogurtRecapMod.getScheduler().schedule(snapshotTask, ModConfig.PERF_METRICS_SNAPSHOT_SECONDS * 20);
+        if (!enabled) {
+            return;
+        }
+        byte[] text = render(System.currentTimeMillis()).getBytes(StandardCharsets.UTF_8);
+        File target = file;
+        long maxBytes = Math.max(1, ModConfig.PERF_METRICS_FILE_MAX_KB) * 1024L;
+        YogurtRecapMod.getPersistence().submit(() -> append(target, text, maxBytes));
+    }
+
+    /**
+     * One OpenMetrics exposition (terminated by {@code # EOF}) of every metric, samples stamped with {@code timeMillis}.
+     */
+    String render(long timeMillis) {
+        String ts = String.format(Locale.ROOT, " %d.%03d", timeMillis / 1000L, timeMillis % 1000L);
+        StringBuilder out = new StringBuilder(4096);
+        for (Counter counter : counters) {
+            String name = PREFIX + counter.name;
+            out.append("# TYPE ").append(name).append(" counter\n");
+            out.append("# HELP ").append(name).append(' ').append(counter.help).append('\n');
+            out.append(name).append("_total ").append(counter.get()).append(ts).append('\n');
+        }
+        for (Histogram histogram : histograms) {
+            String name = PREFIX + histogram.name + "_seconds";
+            out.append("# TYPE ").append(name).append(" histogram\n");
+            out.append("# UNIT ").append(name).append(" seconds\n");
+            out.append("# HELP ").append(name).append(' ').append(histogram.help).append('\n');
+            long cumulative = 0L;
+            int last = Histogram.BUCKETS - 1;
+            while (last > 0 && histogram.buckets.get(last) == 0L) {
+                last--;
+            }
+            for (int i = 0; i <= last && i < Histogram.BUCKETS - 1; i++) {
+                cumulative += histogram.buckets.get(i);
+                out.append(name).append("_bucket{le=\"").append(seconds(Histogram.upperBound(i))).append("\"} ")
+                        .append(cumulative).append(ts).append('\n');
+            }
+            long count = histogram.getCount();
+            out.append(name).append("_bucket{le=\"+Inf\"} ").append(count).append(ts).append('\n');
+            out.append(name).append("_sum ").append(seconds(histogram.sumNanos.get())).append(ts).append('\n');
+            out.append(name).append("_count ").append(count).append(ts).append('\n');
+        }
+        out.append("# EOF\n");
+        return out.toString();
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    // Writer thread: append one exposition, rolling the file over first if it would grow past maxBytes.
+    private static void append(File target, byte[] text, long maxBytes) throws IOException {
+        File dir = target.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir);
+        }
+        if (target.length() > 0L && target.length() + text.length > maxBytes) {
+            File rolled = new File(dir, "perf.1.txt");
+            if (rolled.exists() && !rolled.delete()) {
+                throw new IOException("Could not delete " + rolled);
+            }
+            if (!target.renameTo(rolled)) {
+                throw new IOException("Could not roll over " + target);
+            }
+        }
+        try (OutputStream out = new FileOutputStream(target, true)) {
+            out.write(text);
+        }
+    }
+}
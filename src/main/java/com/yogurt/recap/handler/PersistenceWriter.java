@@ -0,0 +1,191 @@
+package com.yogurt.recap.handler;
+
+import com.yogurt.recap.YogurtRecapMod;
+import com.yogurt.recap.config.ModConfig;
+import com.yogurt.recap.utils.SpscQueue;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single background thread for every disk write the mod does (round history, config saves, ...).
+ *
+ * The client thread only {@link #submit(Write)}s into a bounded single-producer / single-consumer ring, which never
+ * blocks or locks; a full ring drops the write and counts it. The writer drains everything that is queued as one
+ * batch and flushes the registered {@link Flushable}s once {@link ModConfig#PERSISTENCE_FLUSH_BATCH} writes have
+ * accumulated or {@link ModConfig#PERSISTENCE_FLUSH_INTERVAL_MS} has passed since the first unflushed write.
+ * A JVM shutdown hook drains the ring and does a final flush.
+ *
+ * Producer side (submit) must only ever be called from the client thread.
+ */
+public class PersistenceWriter implements Runnable {
+    private static final int CAPACITY = 1024;
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000L;
+
+    /**
+     * A unit of work run on the writer thread.
+     */
+    public interface Write {
+        void run() throws IOException;
+    }
+
+    private final SpscQueue<Write> queue = new SpscQueue<>(CAPACITY);
+    private final List<Flushable> flushables = new CopyOnWriteArrayList<>();
+
+    private volatile Thread thread;
+    private volatile boolean running;
+    private volatile boolean idle;
+
+    // Observability (written by the writer thread, read anywhere)
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long written;
+    private volatile long flushes;
+    private volatile long lastFlushNanos;
+    private volatile long maxFlushNanos;
+
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this, YogurtRecapMod.NAME + " persistence");
+        thread.setDaemon(true);
+        thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, YogurtRecapMod.NAME + " persistence shutdown"));
+    }
+
+    /**
+     * Registers something to flush after each batch (and on shutdown).
+     */
+    public void addFlushable(Flushable flushable) {
+        flushables.add(flushable);
+    }
+
+    /**
+     * Queues {@code write} for the writer thread. Returns {@code false} (and counts a drop) if the queue is full.
+     * Client thread only.
+     */
+    public boolean submit(Write write) {
+        if (!queue.offer(write)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        Thread writer = thread;
+        if (idle && writer != null) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    @Override
+    public void run() {
+        long unflushed = 0;
+        long firstUnflushedNanos = 0L;
+        while (running) {
+            int drained = drain();
+            if (drained > 0 && unflushed == 0) {
+                firstUnflushedNanos = System.nanoTime();
+            }
+            unflushed += drained;
+
+            long intervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, ModConfig.PERSISTENCE_FLUSH_INTERVAL_MS));
+            if (unflushed > 0 && (unflushed >= ModConfig.PERSISTENCE_FLUSH_BATCH
+                    || System.nanoTime() - firstUnflushedNanos >= intervalNanos)) {
+                flush();
+                unflushed = 0;
+            }
+
+            if (drained == 0) {
+                idle = true;
+                if (queue.isEmpty() && running) {
+                    long waitNanos = unflushed > 0 ? firstUnflushedNanos + intervalNanos - System.nanoTime() : intervalNanos;
+                    LockSupport.parkNanos(this, Math.max(waitNanos, 1L));
+                }
+                idle = false;
+            }
+        }
+        // Final drain + flush once shutdown was requested
+        drain();
+        flush();
+    }
+
+    private int drain() {
+        int count = 0;
+        Write write;
+        while ((write = queue.poll()) != null) {
+            try {
+                write.run();
+            } catch (Exception e) {
+                YogurtRecapMod.getLogger().error("Background write failed", e);
+            }
+            count++;
+        }
+        if (count > 0) {
+            written += count;
+        }
+        return count;
+    }
+
+    private void flush() {
+        long start = System.nanoTime();
+        for (Flushable flushable : flushables) {
+            try {
+                flushable.flush();
+            } catch (Exception e) {
+                YogurtRecapMod.getLogger().error("Background flush failed", e);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        lastFlushNanos = elapsed;
+        if (elapsed > maxFlushNanos) {
+            maxFlushNanos = elapsed;
+        }
+        flushes++;
+    }
+
+    /**
+     * Stops the writer after draining the queue and flushing. Waits up to {@value #SHUTDOWN_TIMEOUT_MS} ms.
+     */
+    public void shutdown() {
+        Thread writer = thread;
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(SHUTDOWN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getWritten() {
+        return written;
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getFlushCount() {
+        return flushes;
+    }
+
+    public long getLastFlushNanos() {
+        return lastFlushNanos;
+    }
+
+    public long getMaxFlushNanos() {
+        return maxFlushNanos;
+    }
+}
@@ -1,27 +1,55 @@
 package com.yogurt.recap.handler;
 
-import com.yogurt.recap.utils.PlayerUtils;
-import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
-import net.minecraftforge.fml.common.gameevent.TickEvent;
+import com.yogurt.recap.YogurtRecapMod;
 
 /**
- * Simple wall-clock timer used to estimate "current wave" based on elapsed ms since the round title appeared.
+ * Monotonic round clock ({@link System#nanoTime()}) used to estimate "current wave" based on elapsed ms since the
+ * round title packet arrived (see {@link GameTitleHandler}).
  * This is a lightweight replacement for ShowSpawnTime's scheduled 10ms tick counter.
  */
 public class RoundTimer {
-    private long roundStartMillis = -1L;
-    private int titleMissingTicks = 0; // Tolerance before resetting (prevents false resets during brief title changes)
+    private static final int TITLE_MISSING_RESET_TICKS = 10;
 
-    public void onRoundStart() {
-        this.roundStartMillis = System.currentTimeMillis();
-        this.titleMissingTicks = 0; // Reset tolerance counter on new round
+    private boolean running = false;
+    private long roundStartNanos;
+    private int lastRoundMs = 0;
+    // Tolerance before resetting (prevents false resets during brief title changes)
+    private final TickScheduler.Task resetTask = YogurtRecapMod.getScheduler().newTask(this::endRound);
+
+    /**
+     * @param startNanos {@link System#nanoTime()} at which the round title arrived
+     */
+    public void onRoundStart(long startNanos) {
+        this.lastRoundMs = getElapsedMs(startNanos);
+        this.roundStartNanos = startNanos;
+        this.running = true;
+        YogurtRecapMod.getScheduler().cancel(resetTask); // Reset tolerance on new round
+    }
+
+    /**
+     * Duration of the round that ended with the latest {@link #onRoundStart(long)} (or with leaving the game); 0 if
+     * unknown.
+     */
+    public int getLastRoundMs() {
+        return lastRoundMs;
+    }
+
+    private void endRound() {
+        if (running) {
+            lastRoundMs = getElapsedMs();
+        }
+        running = false;
     }
 
     public int getElapsedMs() {
-        if (roundStartMillis <= 0L) {
+        return getElapsedMs(System.nanoTime());
+    }
+
+    private int getElapsedMs(long nowNanos) {
+        if (!running) {
             return 0;
         }
-        long delta = System.currentTimeMillis() - roundStartMillis;
+        long delta = (nowNanos - roundStartNanos) / 1_000_000L;
         if (delta <= 0L) {
             return 0;
         }
@@ -31,21 +59,16 @@ public class RoundTimer {
         return (int) delta;
     }
 
-    @SubscribeEvent
-    public void onClientTick(TickEvent.ClientTickEvent event) {
-        if (event.phase != TickEvent.Phase.START) {
-            return;
-        }
+    /**
+     * Timer stage of the {@link TickPipeline} (Zombies ticks and the tick the game is left).
+     */
+    public void onTick(TickContext ctx) {
         // IMPORTANT: Don't reset immediately on brief "not in zombies" glitches during transitions.
         // Wait 10 ticks (same as KillsGoldTracker) before resetting to avoid false resets.
-        if (!PlayerUtils.isInZombiesTitle()) {
-            titleMissingTicks++;
-            if (titleMissingTicks >= 10) {
-                roundStartMillis = -1L;
-                titleMissingTicks = 0;
-            }
+        if (!ctx.isInZombies()) {
+            YogurtRecapMod.getScheduler().scheduleIfIdle(resetTask, TITLE_MISSING_RESET_TICKS);
         } else {
-            titleMissingTicks = 0; // Title is present - reset the missing counter
+            YogurtRecapMod.getScheduler().cancel(resetTask); // Title is present - drop the pending reset
         }
     }
 }
@@ -1,109 +1,343 @@
 package com.yogurt.recap.handler;
 
+import com.yogurt.recap.utils.LanguageUtils;
 import com.yogurt.recap.utils.StringUtils;
 import net.minecraft.client.Minecraft;
-import net.minecraft.client.entity.EntityPlayerSP;
 import net.minecraft.scoreboard.Score;
 import net.minecraft.scoreboard.ScoreObjective;
 import net.minecraft.scoreboard.ScorePlayerTeam;
 import net.minecraft.scoreboard.Scoreboard;
-import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
-import net.minecraftforge.fml.common.gameevent.TickEvent;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
- * Lightweight scoreboard snapshotter (sidebar slot 1), adapted from ShowSpawnTime.
+ * Incremental sidebar model (display slot 1), adapted from ShowSpawnTime's scoreboard snapshotter.
+ *
+ * Instead of polling, {@code MixinNetHandlerPlayClient} forwards score, team, objective and display-slot packets
+ * after vanilla has applied them, and only the affected rows are re-formatted. A full rebuild only happens when
+ * the sidebar objective itself changes (or a team is removed).
+ *
+ * Readers see a double-buffered snapshot: packet handlers stage row changes into the back buffer (with per-row dirty
+ * bits), and {@link #publish()} swaps it in once per tick with a new generation number. A reader that remembers the
+ * last generation it processed can skip all work with a single comparison.
  */
 public class ScoreboardManager {
-    private String title = "";
-    private List<String> content = new ArrayList<>();
+    private static final int SIDEBAR_SLOT = 1;
+    /** Rows the vanilla sidebar renders; lower-scored rows are never visible. */
+    public static final int MAX_ROWS = 15;
+
+    // Same order as the rendered sidebar: highest score first, ties by name (case-insensitive).
+    private static final Comparator<Row> ROW_ORDER = (a, b) -> {
+        if (a.points != b.points) {
+            return a.points > b.points ? -1 : 1;
+        }
+        return a.holder.compareToIgnoreCase(b.holder);
+    };
+
+    private Snapshot front = new Snapshot();
+    private Snapshot back = new Snapshot();
+    private boolean backChanged = false;
+    private long generation = 0L;
+
+    private ScoreObjective sidebarObjective;
+    private final List<Row> rows = new ArrayList<>();
+    private final Map<String, Row> rowByHolder = new HashMap<>();
+
+    private static final class Row {
+        final String holder;
+        int points;
+        String text;
+
+        Row(String holder, int points) {
+            this.holder = holder;
+            this.points = points;
+        }
+    }
+
+    private static final class Snapshot {
+        final String[] lines = new String[MAX_ROWS];
+        int size;
+        String title = "";
+        boolean zombies;
+        int dirtyRows; // bit (row - 1) set when that row changed in this generation
+
+        void copyFrom(Snapshot other) {
+            System.arraycopy(other.lines, 0, lines, 0, MAX_ROWS);
+            size = other.size;
+            title = other.title;
+            zombies = other.zombies;
+            dirtyRows = 0;
+        }
+    }
 
     public String getTitle() {
-        return title;
+        return front.title;
     }
 
-    public List<String> getContents() {
-        return content;
+    /**
+     * Cached {@link LanguageUtils#isZombiesTitle(String)} of the published title, recomputed only when it changes.
+     */
+    public boolean isZombies() {
+        return front.zombies;
     }
 
     public int getSize() {
-        return content.size();
+        return front.size;
     }
 
     public String getContent(int row) {
         if (row > this.getSize() || row < 1) {
             return "";
         }
-        return content.get(row - 1);
+        return front.lines[row - 1];
+    }
+
+    /**
+     * Incremented every time a changed snapshot is published. Never goes backwards.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Rows that changed in the current generation: bit {@code row - 1} for {@link #getContent(int)}'s {@code row}.
+     */
+    public int getDirtyRows() {
+        return front.dirtyRows;
     }
 
     public void clear() {
-        this.title = "";
-        this.content = new ArrayList<>();
+        stageTitle("");
+        this.sidebarObjective = null;
+        this.rows.clear();
+        this.rowByHolder.clear();
+        stageRows();
     }
 
+    /**
+     * Swaps the staged buffer in if anything changed since the last publish.
+     */
+    public void publish() {
+        if (!backChanged) {
+            return;
+        }
+        Snapshot published = back;
+        back = front;
+        front = published;
+        generation++;
+        back.copyFrom(front);
+        backChanged = false;
+    }
+
+    /**
+     * Full rebuild from the client scoreboard. Only needed when the sidebar objective changes.
+     */
     public void updateScoreboardContent() {
-        Minecraft mc = Minecraft.getMinecraft();
-        if (mc == null || mc.theWorld == null) {
+        Scoreboard scoreboard = getScoreboard();
+        clear();
+        if (scoreboard == null) {
             return;
         }
-        Scoreboard scoreboard = mc.theWorld.getScoreboard();
-        ScoreObjective sidebarObjective = scoreboard.getObjectiveInDisplaySlot(1);
+        sidebarObjective = scoreboard.getObjectiveInDisplaySlot(SIDEBAR_SLOT);
         if (sidebarObjective == null) {
-            this.title = "";
-            this.content = new ArrayList<>();
             return;
         }
 
-        this.title = StringUtils.trim(sidebarObjective.getDisplayName());
+        stageTitle(StringUtils.trim(sidebarObjective.getDisplayName()));
 
-        List<String> scoreboardLines = new ArrayList<>();
         Collection<Score> scores = scoreboard.getSortedScores(sidebarObjective);
-        List<Score> filteredScores = scores.stream()
-                .filter(s -> s.getPlayerName() != null && !s.getPlayerName().startsWith("#"))
-                .collect(Collectors.toCollection(CopyOnWriteArrayList::new));
-        if (filteredScores.isEmpty()) {
-            this.content = scoreboardLines;
+        for (Score score : scores) {
+            String holder = score.getPlayerName();
+            if (holder == null || holder.startsWith("#")) {
+                continue;
+            }
+            Row row = new Row(holder, score.getScorePoints());
+            row.text = formatLine(scoreboard, holder);
+            rows.add(row);
+            rowByHolder.put(holder, row);
+        }
+        reorder();
+    }
+
+    /**
+     * S3CPacketUpdateScore: one sidebar row was set or removed.
+     */
+    public void onScoreUpdated(String holder, String objectiveName, int points, boolean removed) {
+        if (holder == null || holder.startsWith("#") || sidebarObjective == null) {
+            return;
+        }
+        if (removed) {
+            // An empty objective name removes the holder from every objective.
+            boolean affectsSidebar = objectiveName == null || objectiveName.isEmpty()
+                    || objectiveName.equals(sidebarObjective.getName());
+            Row row = affectsSidebar ? rowByHolder.remove(holder) : null;
+            if (row != null) {
+                rows.remove(row);
+                reorder();
+            }
+            return;
+        }
+        if (!sidebarObjective.getName().equals(objectiveName)) {
             return;
         }
 
-        Collections.reverse(filteredScores);
-        for (Score line : filteredScores) {
-            ScorePlayerTeam team = scoreboard.getPlayersTeam(line.getPlayerName());
-            String scoreboardLine = ScorePlayerTeam.formatPlayerName(team, line.getPlayerName()).trim();
-            scoreboardLines.add(StringUtils.trim(scoreboardLine));
+        Row row = rowByHolder.get(holder);
+        if (row == null) {
+            row = new Row(holder, points);
+            row.text = formatLine(getScoreboard(), holder);
+            rows.add(row);
+            rowByHolder.put(holder, row);
+            reorder();
+        } else if (row.points != points) {
+            row.points = points;
+            reorder();
         }
-        this.content = scoreboardLines;
     }
 
-    private int tick = 0;
+    /**
+     * S3EPacketTeams: prefix/suffix or membership changed, so re-format the rows whose holders are affected.
+     *
+     * @param players the packet's player list (used for add/remove-player actions)
+     */
+    public void onTeamUpdated(String teamName, Collection<String> players, int action) {
+        if (sidebarObjective == null || rows.isEmpty()) {
+            return;
+        }
+        Scoreboard scoreboard = getScoreboard();
+        if (scoreboard == null) {
+            return;
+        }
 
-    @SubscribeEvent
-    public void onUpdate(TickEvent.ClientTickEvent event) {
-        Minecraft mc = Minecraft.getMinecraft();
-        if (mc == null || mc.theWorld == null || mc.isSingleplayer()) {
+        switch (action) {
+            case 1: // team removed: its former members are unknown now, re-format every row
+                for (Row row : rows) {
+                    refreshRow(scoreboard, row);
+                }
+                break;
+            case 3: // players added
+            case 4: // players removed
+                if (players != null) {
+                    for (String holder : players) {
+                        refreshRow(scoreboard, rowByHolder.get(holder));
+                    }
+                }
+                break;
+            default: // created / info updated
+                ScorePlayerTeam team = scoreboard.getTeam(teamName);
+                if (team != null) {
+                    for (String holder : team.getMembershipCollection()) {
+                        refreshRow(scoreboard, rowByHolder.get(holder));
+                    }
+                }
+                break;
+        }
+    }
+
+    /**
+     * S3BPacketScoreboardObjective: the sidebar objective may have been renamed or removed.
+     */
+    public void onObjectiveUpdated() {
+        Scoreboard scoreboard = getScoreboard();
+        ScoreObjective current = scoreboard == null ? null : scoreboard.getObjectiveInDisplaySlot(SIDEBAR_SLOT);
+        if (current != sidebarObjective) {
+            updateScoreboardContent();
+        } else if (current != null) {
+            stageTitle(StringUtils.trim(current.getDisplayName()));
+        }
+    }
+
+    /**
+     * S3DPacketDisplayScoreboard: a different objective may now be shown in the sidebar.
+     */
+    public void onDisplaySlotUpdated() {
+        Scoreboard scoreboard = getScoreboard();
+        ScoreObjective current = scoreboard == null ? null : scoreboard.getObjectiveInDisplaySlot(SIDEBAR_SLOT);
+        if (current != sidebarObjective) {
+            updateScoreboardContent();
+        }
+    }
+
+    private void refreshRow(Scoreboard scoreboard, Row row) {
+        if (row == null) {
             return;
         }
-        if (event.phase != TickEvent.Phase.START) {
+        String text = formatLine(scoreboard, row.holder);
+        if (!text.equals(row.text)) {
+            row.text = text;
+            int index = rows.indexOf(row);
+            if (index >= 0 && index < MAX_ROWS) {
+                stageLine(index, text);
+            }
+        }
+    }
+
+    private void reorder() {
+        rows.sort(ROW_ORDER);
+        stageRows();
+    }
+
+    private void stageRows() {
+        int size = Math.min(rows.size(), MAX_ROWS);
+        for (int i = 0; i < size; i++) {
+            stageLine(i, rows.get(i).text);
+        }
+        for (int i = size; i < back.size; i++) {
+            stageLine(i, null);
+        }
+        if (back.size != size) {
+            back.size = size;
+            backChanged = true;
+        }
+    }
+
+    private void stageLine(int index, String text) {
+        String current = back.lines[index];
+        if (current == text || (current != null && current.equals(text))) {
             return;
         }
-        EntityPlayerSP p = mc.thePlayer;
-        if (p == null) {
+        back.lines[index] = text;
+        back.dirtyRows |= 1 << index;
+        backChanged = true;
+    }
+
+    private void stageTitle(String title) {
+        if (title.equals(back.title)) {
             return;
         }
+        back.title = title;
+        back.zombies = LanguageUtils.isZombiesTitle(title);
+        backChanged = true;
+    }
 
-        tick++;
-        if (tick != 0 && tick % 5 == 0) {
-            updateScoreboardContent();
-            tick = 0;
+    private static String formatLine(Scoreboard scoreboard, String holder) {
+        if (scoreboard == null) {
+            return "";
         }
+        ScorePlayerTeam team = scoreboard.getPlayersTeam(holder);
+        return StringUtils.trim(ScorePlayerTeam.formatPlayerName(team, holder));
     }
-}
 
+    private static Scoreboard getScoreboard() {
+        Minecraft mc = Minecraft.getMinecraft();
+        if (mc == null || mc.theWorld == null) {
+            return null;
+        }
+        return mc.theWorld.getScoreboard();
+    }
 
+    /**
+     * Sidebar stage of the {@link TickPipeline}: publishes this tick's snapshot before anything reads it.
+     */
+    public void onTick(TickContext ctx) {
+        // Packets keep the model current; a new world means a new scoreboard, so resync once.
+        if (ctx.isWorldChanged()) {
+            updateScoreboardContent();
+        }
+        publish();
+    }
+}
@@ -0,0 +1,311 @@
+package com.yogurt.recap.handler;
+
+import com.yogurt.recap.YogurtRecapMod;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.network.NetworkPlayerInfo;
+import net.minecraft.scoreboard.Score;
+import net.minecraft.scoreboard.ScoreObjective;
+import net.minecraft.scoreboard.Scoreboard;
+import net.minecraft.util.IChatComponent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Per-player kills as shown in the tablist, kept current by the scoreboard packet hooks.
+ *
+ * Kills are normally the tablist (display slot 0) objective; every S3C update for it lands here, so a capture just
+ * reads {@link #getKills(String, IChatComponent)} and each change is appended to a small timeline ring. When there
+ * is no tablist objective the yellow number is parsed out of the player's display name, but only when the display
+ * name component is replaced (vanilla swaps the reference on every S38 display-name update); during a Zombies game
+ * the tablist is walked every tick for that, so display-name kills change as they arrive. {@link #getVersion()}
+ * moves with every change either way. Client thread only.
+ */
+public class TablistKillsIndex {
+    private static final int TABLIST_SLOT = 0;
+    private static final int TIMELINE_CAPACITY = 4096; // power of two
+    private static final Pattern MC_FORMATTING_CODE = Pattern.compile("§.");
+
+    private ScoreObjective tablistObjective;
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    // Timeline ring: one row per kills change (objective score or parsed display name), oldest overwritten first.
+    private final long[] timelineTimes = new long[TIMELINE_CAPACITY];
+    private final int[] timelinePlayers = new int[TIMELINE_CAPACITY];
+    private final int[] timelineKills = new int[TIMELINE_CAPACITY];
+    private long timelineNext = 0L;
+    private long version = 0L;
+    private final List<String> playerNames = new ArrayList<>();
+    private final PerfMetrics.Counter updates = YogurtRecapMod.getPerf().counter("tablist_kills_updates",
+            "Tablist objective score changes applied to the kills index");
+
+    private static final class Entry {
+        final int playerId;
+        boolean hasScore;
+        int score;
+        IChatComponent displayName; // the component displayKills was parsed from
+        int displayKills;
+
+        Entry(int playerId) {
+            this.playerId = playerId;
+        }
+    }
+
+    /**
+     * Kills for {@code name}: the tablist objective value if there is an objective (0 if it has no score for the
+     * player), otherwise the number parsed from {@code displayName}.
+     */
+    public int getKills(String name, IChatComponent displayName) {
+        Entry entry = entries.get(name);
+        if (tablistObjective != null) {
+            return entry != null && entry.hasScore ? entry.score : 0;
+        }
+        if (displayName == null) {
+            return 0;
+        }
+        if (entry == null) {
+            entry = entry(name);
+        }
+        if (entry.displayName != displayName) {
+            boolean first = entry.displayName == null;
+            entry.displayName = displayName;
+            int kills = parseKillsFromDisplay(name, displayName.getFormattedText());
+            if (first || kills != entry.displayKills) {
+                entry.displayKills = kills;
+                version++;
+                appendTimeline(entry, kills, System.currentTimeMillis());
+            }
+        }
+        return entry.displayKills;
+    }
+
+    /**
+     * Bumped whenever a kills value {@link #getKills} returns may have changed (objective or display name).
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Rebuild from the client scoreboard. Only needed when the tablist objective changes.
+     */
+    public void resync() {
+        for (Entry entry : entries.values()) {
+            entry.hasScore = false;
+        }
+        version++;
+        Scoreboard scoreboard = getScoreboard();
+        tablistObjective = scoreboard == null ? null : scoreboard.getObjectiveInDisplaySlot(TABLIST_SLOT);
+        if (tablistObjective == null) {
+            return;
+        }
+        Collection<Score> scores = scoreboard.getSortedScores(tablistObjective);
+        long now = System.currentTimeMillis();
+        for (Score score : scores) {
+            setScore(score.getPlayerName(), score.getScorePoints(), now);
+        }
+    }
+
+    /**
+     * S3CPacketUpdateScore: a holder's score was set or removed.
+     */
+    public void onScoreUpdated(String holder, String objectiveName, int points, boolean removed) {
+        if (holder == null || tablistObjective == null) {
+            return;
+        }
+        if (removed) {
+            // An empty objective name removes the holder from every objective.
+            if (objectiveName == null || objectiveName.isEmpty() || objectiveName.equals(tablistObjective.getName())) {
+                Entry entry = entries.get(holder);
+                if (entry != null && entry.hasScore) {
+                    entry.hasScore = false;
+                    version++;
+                }
+            }
+            return;
+        }
+        if (tablistObjective.getName().equals(objectiveName)) {
+            setScore(holder, points, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * S3BPacketScoreboardObjective / S3DPacketDisplayScoreboard: the tablist may now show a different objective.
+     */
+    public void onObjectivesChanged() {
+        Scoreboard scoreboard = getScoreboard();
+        ScoreObjective current = scoreboard == null ? null : scoreboard.getObjectiveInDisplaySlot(TABLIST_SLOT);
+        if (current != tablistObjective) {
+            resync();
+        }
+    }
+
+    private void setScore(String holder, int points, long timeMillis) {
+        if (holder == null) {
+            return;
+        }
+        Entry entry = entries.get(holder);
+        if (entry == null) {
+            entry = entry(holder);
+        } else if (entry.hasScore && entry.score == points) {
+            return;
+        }
+        entry.hasScore = true;
+        entry.score = points;
+        version++;
+        updates.increment();
+        appendTimeline(entry, points, timeMillis);
+    }
+
+    private void appendTimeline(Entry entry, int kills, long timeMillis) {
+        int slot = (int) timelineNext & (TIMELINE_CAPACITY - 1);
+        timelineTimes[slot] = timeMillis;
+        timelinePlayers[slot] = entry.playerId;
+        timelineKills[slot] = kills;
+        timelineNext++;
+    }
+
+    private Entry entry(String name) {
+        Entry entry = new Entry(playerNames.size());
+        playerNames.add(name);
+        entries.put(name, entry);
+        return entry;
+    }
+
+    // Timeline reads: ids run from getTimelineOldest() (inclusive) to getTimelineNext() (exclusive).
+
+    public long getTimelineNext() {
+        return timelineNext;
+    }
+
+    public long getTimelineOldest() {
+        return Math.max(0L, timelineNext - TIMELINE_CAPACITY);
+    }
+
+    public long getTimelineTime(long id) {
+        return timelineTimes[(int) id & (TIMELINE_CAPACITY - 1)];
+    }
+
+    public String getTimelinePlayer(long id) {
+        return playerNames.get(timelinePlayers[(int) id & (TIMELINE_CAPACITY - 1)]);
+    }
+
+    public int getTimelineKills(long id) {
+        return timelineKills[(int) id & (TIMELINE_CAPACITY - 1)];
+    }
+
+    private void clear() {
+        tablistObjective = null;
+        entries.clear();
+        playerNames.clear();
+        timelineNext = 0L;
+    }
+
+    /**
+     * The first yellow (or gold) number after the player's name in a formatted tablist display name, or 0.
+     */
+    private static int parseKillsFromDisplay(String username, String formatted) {
+        if (formatted == null || formatted.isEmpty()) {
+            // If no formatted display name is available, we can't reliably parse the colored segment.
+            return 0;
+        }
+
+        // Find where the username ends in the stripped text; kills appear after the nickname in tablist.
+        String stripped = MC_FORMATTING_CODE.matcher(formatted).replaceAll("").trim();
+        int nameIndex = username.isEmpty() ? -1 : stripped.indexOf(username);
+        int startStrippedPos = (nameIndex >= 0) ? (nameIndex + username.length()) : 0;
+
+        // Walk the formatted text, tracking current color, and extract the first yellow-colored number after the name.
+        long kills = 0L;
+        boolean found = false;
+        char currentColor = 0;
+        int strippedPos = 0;
+        boolean collecting = false;
+
+        for (int i = 0; i < formatted.length(); i++) {
+            char c = formatted.charAt(i);
+            if (c == '§' && i + 1 < formatted.length()) {
+                currentColor = Character.toLowerCase(formatted.charAt(i + 1));
+                i++; // skip color code char
+                continue;
+            }
+
+            // This character is visible; advance stripped position.
+            boolean afterName = strippedPos >= startStrippedPos;
+
+            // Hypixel uses '§e' (yellow) commonly; sometimes '§6' (gold) is used for yellow-ish numbers.
+            boolean isYellow = currentColor == 'e' || currentColor == '6';
+            boolean isDigitOrComma = (c >= '0' && c <= '9') || c == ',';
+
+            if (!collecting) {
+                if (afterName && isYellow && isDigitOrComma) {
+                    collecting = true;
+                }
+            } else if (!isYellow || !isDigitOrComma) {
+                // Stop if color changes away from yellow or the sequence ends.
+                break;
+            }
+            if (collecting && c != ',') {
+                kills = kills * 10 + (c - '0');
+                if (kills > Integer.MAX_VALUE) {
+                    return 0; // not a kill count
+                }
+                found = true;
+            }
+
+            strippedPos++;
+        }
+
+        // Fallback: no colored segment found.
+        return found ? (int) kills : 0;
+    }
+
+    private static Scoreboard getScoreboard() {
+        Minecraft mc = Minecraft.getMinecraft();
+        if (mc == null || mc.theWorld == null) {
+            return null;
+        }
+        return mc.theWorld.getScoreboard();
+    }
+
+    /**
+     * Sidebar stage of the {@link TickPipeline}.
+     */
+    public void onTick(TickContext ctx) {
+        // Same as the sidebar model: a new world means a new scoreboard (and new players), so start over.
+        if (ctx.isWorldChanged()) {
+            clear();
+            resync();
+        }
+    }
+
+    /**
+     * Detection stage of the {@link TickPipeline} (Zombies ticks only): without an objective, re-reads the display
+     * names that were replaced since the last tick (a reference check otherwise). Runs after the sidebar stages,
+     * where this tick's Zombies state is known.
+     */
+    public void refreshDisplayKills(TickContext ctx) {
+        if (tablistObjective != null || !ctx.isInZombies()) {
+            return;
+        }
+        Minecraft mc = ctx.getMinecraft();
+        if (mc == null || mc.thePlayer == null || mc.thePlayer.sendQueue == null) {
+            return;
+        }
+        for (NetworkPlayerInfo info : mc.thePlayer.sendQueue.getPlayerInfoMap()) {
+            if (info.getGameProfile() == null || info.getDisplayName() == null) {
+                continue;
+            }
+            String name = info.getGameProfile().getName();
+            // Same player filter as the capture: skip NPCs / non-players
+            if (name == null || name.startsWith("!") || name.length() < 3 || name.length() > 16) {
+                continue;
+            }
+            getKills(name, info.getDisplayName());
+        }
+    }
+}
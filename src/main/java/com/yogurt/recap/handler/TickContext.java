@@ -0,0 +1,71 @@
+package com.yogurt.recap.handler;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.world.World;
+
+/**
+ * Facts about the current client tick, worked out once by {@link TickPipeline} and shared by every stage.
+ *
+ * World facts are set before the first stage; the Zombies facts are set right after the sidebar stages, from the
+ * sidebar they just published. One instance is reused for every tick.
+ */
+public final class TickContext {
+    private long tick;
+    private Minecraft minecraft;
+    private World world;
+    private World lastWorld;
+    private boolean worldChanged;
+    private boolean inZombies;
+    private boolean wasInZombies;
+
+    void begin(Minecraft mc) {
+        tick++;
+        minecraft = mc;
+        // Same scope as the packet hooks: multiplayer only.
+        world = (mc == null || mc.isSingleplayer()) ? null : mc.theWorld;
+        worldChanged = world != lastWorld;
+        lastWorld = world;
+    }
+
+    void setInZombies(boolean inZombies) {
+        this.wasInZombies = this.inZombies;
+        this.inZombies = inZombies;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public Minecraft getMinecraft() {
+        return minecraft;
+    }
+
+    /**
+     * The multiplayer world, or null when there is none (menus, singleplayer).
+     */
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * True on the first tick of a new (or no longer any) world.
+     */
+    public boolean isWorldChanged() {
+        return worldChanged;
+    }
+
+    /**
+     * Whether the sidebar published this tick is a Zombies sidebar.
+     */
+    public boolean isInZombies() {
+        return inZombies;
+    }
+
+    public boolean isEnteredZombies() {
+        return inZombies && !wasInZombies;
+    }
+
+    public boolean isLeftZombies() {
+        return !inZombies && wasInZombies;
+    }
+}
@@ -0,0 +1,112 @@
+package com.yogurt.recap.handler;
+
+import com.yogurt.recap.YogurtRecapMod;
+import com.yogurt.recap.utils.PlayerUtils;
+import net.minecraft.client.Minecraft;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The mod's only client-tick listener: runs every per-tick stage in a fixed phase order with a shared
+ * {@link TickContext}.
+ *
+ * Sidebar stages always run and publish the sidebar first, so every later stage sees this tick's snapshot. The
+ * Zombies check is then made once; stages added as Zombies-only are skipped while not in a Zombies game, except on
+ * the tick the game is left so they can react to it. Each named stage is timed and allocation-accounted here
+ * ({@link PerfMetrics}, {@link AllocationTracker}) rather than in the stage itself.
+ */
+public class TickPipeline {
+
+    public enum Phase {
+        SIDEBAR,   // refresh the sidebar / tablist models
+        DETECTION, // game-state detection (map)
+        TIMER,     // round timer
+        WAVE,      // wave boundaries
+        TRACKER,   // kills / gold tracking
+        OUTPUT     // scheduled tasks (snapshots, reports), chat echo, bookkeeping
+    }
+
+    public interface Stage {
+        void onTick(TickContext ctx);
+    }
+
+    private static final class Entry {
+        final Phase phase;
+        final boolean zombiesOnly;
+        final Stage stage;
+        final PerfMetrics.Histogram time;
+        final AllocationTracker.Site alloc;
+
+        Entry(Phase phase, String name, boolean zombiesOnly, Stage stage) {
+            this.phase = phase;
+            this.zombiesOnly = zombiesOnly;
+            this.stage = stage;
+            this.time = name == null ? null : YogurtRecapMod.getPerf().histogram(name, "Tick stage " + name);
+            this.alloc = name == null ? null : YogurtRecapMod.getAllocations().site(name, true);
+        }
+    }
+
+    private final List<Entry> stages = new ArrayList<>();
+    private final TickContext context = new TickContext();
+    private final PerfMetrics.Histogram tickTime = YogurtRecapMod.getPerf().histogram("tick_pipeline",
+            "Whole tick pipeline, all stages");
+
+    /**
+     * Adds {@code stage} after the stages already added to {@code phase}.
+     *
+     * @param name metric name for the stage's latency and allocations, or null to leave it uninstrumented
+     * @param zombiesOnly skip the stage while not in a Zombies game (it still runs on the tick the game is left)
+     */
+    public void add(Phase phase, String name, boolean zombiesOnly, Stage stage) {
+        int at = stages.size();
+        while (at > 0 && stages.get(at - 1).phase.compareTo(phase) > 0) {
+            at--;
+        }
+        stages.add(at, new Entry(phase, name, zombiesOnly, stage));
+    }
+
+    @SubscribeEvent
+    public void onClientTick(TickEvent.ClientTickEvent event) {
+        if (event.phase != TickEvent.Phase.START) {
+            return;
+        }
+        long start = PerfMetrics.start();
+        TickContext ctx = context;
+        ctx.begin(Minecraft.getMinecraft());
+
+        boolean zombiesKnown = false;
+        boolean runZombiesStages = false;
+        for (int i = 0; i < stages.size(); i++) {
+            Entry entry = stages.get(i);
+            if (!zombiesKnown && entry.phase != Phase.SIDEBAR) {
+                // The sidebar has been published: decide once for the rest of the tick.
+                ctx.setInZombies(PlayerUtils.isInZombiesTitle());
+                runZombiesStages = ctx.isInZombies() || ctx.isLeftZombies();
+                zombiesKnown = true;
+            }
+            if (entry.zombiesOnly && !runZombiesStages) {
+                continue;
+            }
+            run(entry, ctx);
+        }
+        tickTime.stop(start);
+    }
+
+    private static void run(Entry entry, TickContext ctx) {
+        if (entry.time == null) {
+            entry.stage.onTick(ctx);
+            return;
+        }
+        long start = PerfMetrics.start();
+        long allocStart = AllocationTracker.begin();
+        try {
+            entry.stage.onTick(ctx);
+        } finally {
+            entry.alloc.end(allocStart);
+            entry.time.stop(start);
+        }
+    }
+}
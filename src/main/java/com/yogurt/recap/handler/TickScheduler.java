@@ -0,0 +1,145 @@
+package com.yogurt.recap.handler;
+
+import com.yogurt.recap.YogurtRecapMod;
+
+/**
+ * Shared client-tick scheduler for every delayed / debounced action in the mod (hierarchical timer wheel).
+ *
+ * Three levels of 64 slots cover delays up to 64^3 ticks (~3.6 hours); longer delays are clamped.
+ * Scheduling, rescheduling and cancelling are O(1) list operations on a {@link Task}, and a tick with
+ * nothing due is a single empty-slot check. Tasks run on the client thread, in the {@link TickPipeline}'s output
+ * phase (after the sidebar, timer, wave and tracker stages).
+ */
+public class TickScheduler {
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 3;
+    private static final long MAX_DELAY = (1L << (WHEEL_BITS * LEVELS)) - 1;
+
+    private final Task[][] wheels = new Task[LEVELS][WHEEL_SIZE];
+    private long currentTick = 0L;
+
+    /**
+     * A reusable timer handle. Create once per action and (re)schedule it as often as needed.
+     */
+    public static final class Task {
+        private final Runnable action;
+        private long deadline;
+        private int level = -1; // -1 when not scheduled
+        private int slot;
+        private Task prev;
+        private Task next;
+
+        private Task(Runnable action) {
+            this.action = action;
+        }
+
+        public boolean isScheduled() {
+            return level >= 0;
+        }
+    }
+
+    public Task newTask(Runnable action) {
+        return new Task(action);
+    }
+
+    /**
+     * Runs {@code task} after {@code delayTicks} ticks (at least one), replacing any pending schedule.
+     */
+    public void schedule(Task task, int delayTicks) {
+        cancel(task);
+        task.deadline = currentTick + Math.min(Math.max(delayTicks, 1), MAX_DELAY);
+        insert(task);
+    }
+
+    /**
+     * Debounce helper: schedules {@code task} only if it isn't already pending.
+     */
+    public void scheduleIfIdle(Task task, int delayTicks) {
+        if (!task.isScheduled()) {
+            schedule(task, delayTicks);
+        }
+    }
+
+    public void cancel(Task task) {
+        if (!task.isScheduled()) {
+            return;
+        }
+        if (task.prev != null) {
+            task.prev.next = task.next;
+        } else {
+            wheels[task.level][task.slot] = task.next;
+        }
+        if (task.next != null) {
+            task.next.prev = task.prev;
+        }
+        task.prev = null;
+        task.next = null;
+        task.level = -1;
+    }
+
+    private void insert(Task task) {
+        long delta = task.deadline - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (WHEEL_BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = (int) (task.deadline >>> (WHEEL_BITS * level)) & WHEEL_MASK;
+        Task head = wheels[level][slot];
+        task.level = level;
+        task.slot = slot;
+        task.prev = null;
+        task.next = head;
+        if (head != null) {
+            head.prev = task;
+        }
+        wheels[level][slot] = task;
+    }
+
+    /**
+     * Output stage of the {@link TickPipeline}.
+     */
+    public void onTick(TickContext ctx) {
+        tick();
+    }
+
+    /**
+     * Advances the wheel by one tick and runs everything that is due.
+     */
+    public void tick() {
+        currentTick++;
+        // Cascade coarser slots down as the finer wheel wraps around.
+        for (int level = 1; level < LEVELS; level++) {
+            if ((currentTick & ((1L << (WHEEL_BITS * level)) - 1)) != 0) {
+                break;
+            }
+            cascade(level, (int) (currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+        }
+
+        // Everything in the current level-0 slot is due now. Actions may (re)schedule tasks, so always pop the head.
+        int slot = (int) currentTick & WHEEL_MASK;
+        Task task;
+        while ((task = wheels[0][slot]) != null) {
+            cancel(task);
+            try {
+                task.action.run();
+            } catch (Exception e) {
+                YogurtRecapMod.getLogger().error("Scheduled task failed", e);
+            }
+        }
+    }
+
+    private void cascade(int level, int slot) {
+        Task task = wheels[level][slot];
+        wheels[level][slot] = null;
+        while (task != null) {
+            Task next = task.next;
+            task.prev = null;
+            task.next = null;
+            task.level = -1;
+            insert(task);
+            task = next;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.yogurt.recap.handler;
+
+import com.google.gson.stream.JsonReader;
+import com.yogurt.recap.YogurtRecapMod;
+import com.yogurt.recap.utils.LanguageUtils;
+import com.yogurt.recap.utils.LanguageUtils.ZombiesMap;
+import com.yogurt.recap.utils.WaveTable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Wave timing table of the detected map, loaded on demand from {@code assets/yogurtrecap/wave_timings.json}.
+ *
+ * Only the detected map's table is ever in memory. {@link #load(ZombiesMap)} runs on the {@link PersistenceWriter}
+ * thread and publishes the parsed {@link WaveTable} through a volatile field; until it lands, {@link #getTable()}
+ * reports no timing data. A {@code config/yogurtrecap/wave_timings.json} with a higher {@code version} than the
+ * bundled file takes precedence; it is re-checked (by modification time) every time a map is detected, so an
+ * updated file applies from the next game without a restart. An override that fails validation is logged and the
+ * bundled table is used instead.
+ */
+public class WaveTimings {
+    private static final String RESOURCE = "/assets/" + YogurtRecapMod.MODID + "/wave_timings.json";
+
+    private volatile WaveTable table = WaveTable.EMPTY;
+    private File overrideFile;
+
+    // Writer thread: what the published table was built from.
+    private ZombiesMap loadedMap = ZombiesMap.NULL;
+    private long loadedOverrideModified = -1L;
+
+    public void configure(File configDir) {
+        overrideFile = new File(configDir, YogurtRecapMod.MODID + File.separator + "wave_timings.json");
+    }
+
+    /**
+     * The current map's table, or {@link WaveTable#EMPTY} if it isn't loaded (yet).
+     */
+    public WaveTable getTable() {
+        WaveTable current = table;
+        return current.getMap() == LanguageUtils.getMap() ? current : WaveTable.EMPTY;
+    }
+
+    /**
+     * Queues loading {@code map}'s table. Cheap if it is already loaded and the override hasn't changed.
+     * Client thread only.
+     */
+    public void load(ZombiesMap map) {
+        if (map == ZombiesMap.NULL) {
+            return;
+        }
+        File override = overrideFile;
+        YogurtRecapMod.getPersistence().submit(() -> read(map, override));
+    }
+
+    // Writer thread.
+    private void read(ZombiesMap map, File override) {
+        long modified = override != null && override.isFile() ? override.lastModified() : 0L;
+        if (map == loadedMap && modified == loadedOverrideModified) {
+            return;
+        }
+        int[] bundledVersion = new int[1];
+        WaveTable bundled = null;
+        try (InputStream in = WaveTimings.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IOException("Missing " + RESOURCE);
+            }
+            bundled = parse(in, map, bundledVersion);
+        } catch (IOException | RuntimeException e) {
+            YogurtRecapMod.getLogger().error("Could not read bundled wave timings for " + map, e);
+        }
+
+        WaveTable chosen = bundled;
+        if (modified != 0L) {
+            int[] overrideVersion = new int[1];
+            try (InputStream in = new FileInputStream(override)) {
+                WaveTable fromOverride = parse(in, map, overrideVersion);
+                if (overrideVersion[0] <= bundledVersion[0]) {
+                    YogurtRecapMod.getLogger().info("Ignoring " + override + ": version " + overrideVersion[0]
+                            + " is not newer than the bundled version " + bundledVersion[0]);
+                } else if (fromOverride != null) {
+                    chosen = fromOverride;
+                }
+            } catch (IOException | RuntimeException e) {
+                YogurtRecapMod.getLogger().warn("Could not read wave timings from " + override
+                        + ", using the bundled table", e);
+            }
+        }
+
+        table = chosen != null ? chosen : WaveTable.EMPTY;
+        loadedMap = map;
+        loadedOverrideModified = modified;
+        if (chosen != null) {
+            YogurtRecapMod.getDebugLog().log(DebugLog.Level.INFO, "Wave timings for {}: {} rounds, version {}",
+                    map.name(), chosen.getRoundCount(), chosen.getVersion());
+        }
+    }
+
+    private static WaveTable parse(InputStream in, ZombiesMap map, int[] versionOut) throws IOException {
+        try (JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return WaveTable.read(reader, map, versionOut);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.yogurt.recap.handler;
+
+import com.yogurt.recap.YogurtRecapMod;
+import com.yogurt.recap.utils.LanguageUtils;
+import com.yogurt.recap.utils.LanguageUtils.ZombiesMap;
+import com.yogurt.recap.utils.PlayerUtils;
+import net.minecraft.client.Minecraft;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+
+/**
+ * Resolves the Zombies map once per world and caches it until the next world load/unload.
+ *
+ * The sidebar "Map: ..." line is authoritative whenever it is present. Until then the map-unique block is probed
+ * every few ticks, and a block result is only accepted after several consecutive identical probes on a loaded chunk.
+ * Each newly resolved map has its wave timings loaded through {@link WaveTimings}.
+ */
+public class ZombiesMapDetector {
+    private static final int PROBE_INTERVAL_TICKS = 5;
+    private static final int REQUIRED_CONFIRMATIONS = 3;
+
+    private ZombiesMap map = ZombiesMap.NULL;
+    private boolean confirmedBySidebar = false;
+
+    private ZombiesMap candidate = ZombiesMap.NULL;
+    private int confirmations = 0;
+    private long scannedGeneration = -1L;
+    private final TickScheduler.Task probeTask = YogurtRecapMod.getScheduler().newTask(this::probe);
+
+    public ZombiesMap getMap() {
+        return map;
+    }
+
+    public void invalidate() {
+        map = ZombiesMap.NULL;
+        confirmedBySidebar = false;
+        candidate = ZombiesMap.NULL;
+        confirmations = 0;
+        scannedGeneration = -1L;
+        YogurtRecapMod.getScheduler().cancel(probeTask);
+    }
+
+    @SubscribeEvent
+    public void onWorldLoad(WorldEvent.Load event) {
+        invalidate();
+    }
+
+    @SubscribeEvent
+    public void onWorldUnload(WorldEvent.Unload event) {
+        invalidate();
+    }
+
+    /**
+     * Detection stage of the {@link TickPipeline} (Zombies ticks only).
+     */
+    public void onTick(TickContext ctx) {
+        if (confirmedBySidebar || !ctx.isInZombies()) {
+            return;
+        }
+
+        // The sidebar only needs a rescan when a new snapshot was published.
+        ScoreboardManager sidebar = YogurtRecapMod.getScoreboardManager();
+        if (sidebar.getGeneration() != scannedGeneration) {
+            scannedGeneration = sidebar.getGeneration();
+            for (int i = 1; i <= sidebar.getSize(); i++) {
+                ZombiesMap fromSidebar = LanguageUtils.getMapFromSidebarLine(sidebar.getContent(i));
+                if (fromSidebar != ZombiesMap.NULL) {
+                    if (fromSidebar != map) {
+                        YogurtRecapMod.getWaveTimings().load(fromSidebar);
+                    }
+                    map = fromSidebar;
+                    confirmedBySidebar = true;
+                    return;
+                }
+            }
+        }
+
+        // Block probes: keep going until confirmed, but the sidebar above can still override later.
+        if (map == ZombiesMap.NULL) {
+            YogurtRecapMod.getScheduler().scheduleIfIdle(probeTask, PROBE_INTERVAL_TICKS);
+        }
+    }
+
+    private void probe() {
+        if (map != ZombiesMap.NULL || !PlayerUtils.isInZombiesTitle()) {
+            return;
+        }
+        ZombiesMap probed = LanguageUtils.probeMap(Minecraft.getMinecraft().theWorld);
+        if (probed == null || probed == ZombiesMap.NULL) {
+            candidate = ZombiesMap.NULL;
+            confirmations = 0;
+            return;
+        }
+        if (probed == candidate) {
+            confirmations++;
+        } else {
+            candidate = probed;
+            confirmations = 1;
+        }
+        if (confirmations >= REQUIRED_CONFIRMATIONS) {
+            map = candidate;
+            YogurtRecapMod.getWaveTimings().load(map);
+        }
+    }
+}
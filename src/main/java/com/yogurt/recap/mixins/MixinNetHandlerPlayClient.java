@@ -0,0 +1,76 @@
+package com.yogurt.recap.mixins;
+
+import com.yogurt.recap.YogurtRecapMod;
+import com.yogurt.recap.handler.GameTitleHandler;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.network.NetHandlerPlayClient;
+import net.minecraft.network.play.server.S3BPacketScoreboardObjective;
+import net.minecraft.network.play.server.S3CPacketUpdateScore;
+import net.minecraft.network.play.server.S3DPacketDisplayScoreboard;
+import net.minecraft.network.play.server.S3EPacketTeams;
+import net.minecraft.network.play.server.S45PacketTitle;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Forwards scoreboard packets to the incremental sidebar model and the tablist kills index once vanilla has applied
+ * them.
+ *
+ * These handlers first run on the Netty thread, where {@code PacketThreadUtil.checkThreadAndEnqueue} re-queues the
+ * packet and exits by throwing, so RETURN is only reached on the client thread with the scoreboard already updated.
+ * Titles are the exception: they are hooked at HEAD on the Netty thread so they can be timestamped on arrival.
+ */
+@Mixin(NetHandlerPlayClient.class)
+public abstract class MixinNetHandlerPlayClient {
+
+    @Inject(method = "handleUpdateScore", at = @At(value = "RETURN"))
+    private void yogurtrecap$handleUpdateScore(S3CPacketUpdateScore packet, CallbackInfo ci) {
+        if (yogurtrecap$isTracking()) {
+            boolean removed = packet.getScoreAction() == S3CPacketUpdateScore.Action.REMOVE;
+            YogurtRecapMod.getScoreboardManager().onScoreUpdated(packet.getPlayerName(), packet.getObjectiveName(),
+                    packet.getScoreValue(), removed);
+            YogurtRecapMod.getTablistKills().onScoreUpdated(packet.getPlayerName(), packet.getObjectiveName(),
+                    packet.getScoreValue(), removed);
+        }
+    }
+
+    @Inject(method = "handleTeams", at = @At(value = "RETURN"))
+    private void yogurtrecap$handleTeams(S3EPacketTeams packet, CallbackInfo ci) {
+        if (yogurtrecap$isTracking()) {
+            YogurtRecapMod.getScoreboardManager().onTeamUpdated(packet.getName(), packet.getPlayers(), packet.getAction());
+        }
+    }
+
+    @Inject(method = "handleScoreboardObjective", at = @At(value = "RETURN"))
+    private void yogurtrecap$handleScoreboardObjective(S3BPacketScoreboardObjective packet, CallbackInfo ci) {
+        if (yogurtrecap$isTracking()) {
+            YogurtRecapMod.getScoreboardManager().onObjectiveUpdated();
+            YogurtRecapMod.getTablistKills().onObjectivesChanged();
+        }
+    }
+
+    @Inject(method = "handleDisplayScoreboard", at = @At(value = "RETURN"))
+    private void yogurtrecap$handleDisplayScoreboard(S3DPacketDisplayScoreboard packet, CallbackInfo ci) {
+        if (yogurtrecap$isTracking()) {
+            YogurtRecapMod.getScoreboardManager().onDisplaySlotUpdated();
+            YogurtRecapMod.getTablistKills().onObjectivesChanged();
+        }
+    }
+
+    @Inject(method = "handleTitle", at = @At(value = "HEAD"))
+    private void yogurtrecap$handleTitle(S45PacketTitle packet, CallbackInfo ci) {
+        // HEAD runs twice: first on the Netty thread (before the re-queue), then again on the client thread.
+        Minecraft mc = Minecraft.getMinecraft();
+        if (mc != null && !mc.isCallingFromMinecraftThread() && packet.getType() == S45PacketTitle.Type.TITLE) {
+            GameTitleHandler.onTitlePacket(packet.getMessage());
+        }
+    }
+
+    private static boolean yogurtrecap$isTracking() {
+        // Same scope as the old polling handler: multiplayer only.
+        Minecraft mc = Minecraft.getMinecraft();
+        return mc != null && mc.theWorld != null && !mc.isSingleplayer();
+    }
+}
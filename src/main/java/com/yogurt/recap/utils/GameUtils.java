@@ -1,19 +1,30 @@
 package com.yogurt.recap.utils;
 
+import com.yogurt.recap.YogurtRecapMod;
+
 public final class GameUtils {
     private GameUtils() {}
 
-    public static int[] getRoundTimes(int round) {
-        LanguageUtils.ZombiesMap map = LanguageUtils.getMap();
-        if (map == null || map == LanguageUtils.ZombiesMap.NULL) {
-            return new int[0];
-        }
-        int[][] timer = map.getTimer();
-        if (!JavaUtils.isValidIndex(timer, round - 1, 0)) {
-            return new int[0];
-        }
-        return timer[round - 1].clone();
+    public static int getWaveCount(int round) {
+        return YogurtRecapMod.getWaveTimings().getTable().getWaveCount(round);
     }
-}
 
+    /**
+     * Spawn time of the last wave of {@code round} in ms, or -1 if there is no timing data.
+     */
+    public static int getLastWaveMillis(int round) {
+        WaveTable table = YogurtRecapMod.getWaveTimings().getTable();
+        return table.getWaveMillis(round, table.getWaveCount(round));
+    }
 
+    /**
+     * Spawn time of {@code wave} (1-based) in {@code round} in ms, or -1 if there is no such wave.
+     */
+    public static int getWaveMillis(int round, int wave) {
+        return YogurtRecapMod.getWaveTimings().getTable().getWaveMillis(round, wave);
+    }
+
+    public static int getWave(int round, int elapsedMs) {
+        return YogurtRecapMod.getWaveTimings().getTable().findWave(round, elapsedMs);
+    }
+}
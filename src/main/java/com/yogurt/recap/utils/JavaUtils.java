@@ -22,8 +22,16 @@ public final class JavaUtils {
      * Equivalent to lower_bound.
      */
     public static int findInsertPosition(int[] array, int target) {
-        int left = 0;
-        int right = array.length - 1;
+        return findInsertPosition(array, 0, array.length, target);
+    }
+
+    /**
+     * {@link #findInsertPosition(int[], int)} restricted to the sorted range {@code array[from, to)}.
+     * The result is an absolute index in {@code from..to}.
+     */
+    public static int findInsertPosition(int[] array, int from, int to, int target) {
+        int left = from;
+        int right = to - 1;
         while (left <= right) {
             int mid = left + (right - left) / 2;
             if (array[mid] == target) {
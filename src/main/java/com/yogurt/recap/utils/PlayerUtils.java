@@ -9,7 +9,8 @@ public final class PlayerUtils {
     private PlayerUtils() {}
 
     public static boolean isInZombiesTitle() {
-        return LanguageUtils.isZombiesTitle(YogurtRecapMod.getScoreboardManager().getTitle());
+        // Cached per published sidebar title; no string work on the per-tick path.
+        return YogurtRecapMod.getScoreboardManager().isZombies();
     }
 
     public static void sendMessage(String string) {
@@ -0,0 +1,62 @@
+package com.yogurt.recap.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock-free single-producer / single-consumer ring.
+ *
+ * {@link #offer(Object)} must only be called from one thread and {@link #poll()} from one (other) thread. Neither
+ * side ever blocks; a full ring rejects the element. {@code offer} publishes with a full fence, so a consumer that
+ * sets a volatile "parked" flag before re-checking {@link #isEmpty()} can't miss a wake-up from a producer that
+ * checks the flag after offering.
+ */
+public final class SpscQueue<T> {
+    private final Object[] ring;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // next slot to consume
+    private final AtomicLong tail = new AtomicLong(); // next slot to fill
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    public SpscQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.ring = new Object[size];
+        this.mask = size - 1;
+    }
+
+    public boolean offer(T element) {
+        long t = tail.get();
+        if (t - head.get() >= ring.length) {
+            return false;
+        }
+        ring[(int) t & mask] = element;
+        tail.set(t + 1);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        long h = head.get();
+        if (h == tail.get()) {
+            return null;
+        }
+        int slot = (int) h & mask;
+        T element = (T) ring[slot];
+        ring[slot] = null;
+        head.lazySet(h + 1);
+        return element;
+    }
+
+    public boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    public int capacity() {
+        return ring.length;
+    }
+}
@@ -1,17 +1,31 @@
 package com.yogurt.recap.utils;
 
-import java.util.regex.Pattern;
-
 public final class StringUtils {
     private StringUtils() {}
 
-    private static final Pattern MC_FORMATTING_CODE = Pattern.compile("§.");
-
+    /**
+     * Strips formatting codes ("§" + one char) and surrounding whitespace.
+     * Plain char scan: most sidebar/title strings have no codes left and only pay for {@link String#trim()}.
+     */
     public static String trim(String s) {
         if (s == null) {
             return "";
         }
-        return MC_FORMATTING_CODE.matcher(s).replaceAll("").trim();
+        int first = s.indexOf('§');
+        if (first < 0) {
+            return s.trim();
+        }
+        StringBuilder sb = new StringBuilder(s.length());
+        sb.append(s, 0, first);
+        for (int i = first; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '§') {
+                i++; // also drop the code character
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString().trim();
     }
 
     public static int getNumberInString(String s) {
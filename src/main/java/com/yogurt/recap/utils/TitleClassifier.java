@@ -0,0 +1,272 @@
+package com.yogurt.recap.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classifies a Zombies title (round start, victory, game over) in one pass over its characters.
+ *
+ * Every keyword of every language is compiled into one Aho-Corasick automaton at class init. {@link #classify}
+ * walks the title once, skipping formatting codes, upper-casing as it goes and collecting the digits, so a title
+ * with no keyword costs one scan and nothing is allocated. Keywords made of Latin / Cyrillic / Greek letters only
+ * match as whole words; CJK keywords match anywhere.
+ */
+public final class TitleClassifier {
+    private TitleClassifier() {}
+
+    /** Not a game title (or a round title without a number). */
+    public static final int NONE = -1;
+    public static final int VICTORY = -2;
+    public static final int GAME_OVER = -3;
+
+    // Keyword kinds (bit positions)
+    private static final int ROUND = 0;
+    private static final int VICTORY_KIND = 1;
+    private static final int GAME_OVER_KIND = 2;
+    private static final int MAX_KEYWORD_LENGTH = 63; // see the letter mask in classify()
+
+    // Upper case, as classify() folds the title.
+    private static final String[] ROUND_KEYWORDS = {
+            "ROUND",      // EN, IT
+            "RUNDE",      // DE, DA, NO
+            "RONDE",      // FR, NL
+            "RODADA",     // PT
+            "RONDA",      // ES
+            "RUNDA",      // PL
+            "KOLO",       // CS
+            "KIERROS",    // FI
+            "OMGÅNG",     // SV
+            "TUR",        // TR
+            "РАУНД",      // RU, UK
+            "回合",        // ZH
+            "라운드",       // KO
+            "ラウンド",      // JA
+    };
+    private static final String[] VICTORY_KEYWORDS = {
+            "YOU WIN",            // EN
+            "GEWONNEN",           // DE, NL
+            "VICTOIRE",           // FR
+            "VOUS AVEZ GAGNÉ",    // FR
+            "HAS GANADO",         // ES
+            "VOCÊ VENCEU",        // PT
+            "HAI VINTO",          // IT
+            "WYGRAŁEŚ",           // PL
+            "VYHRÁL",             // CS
+            "VANDT",              // DA
+            "VANT",               // NO
+            "VANN",               // SV
+            "VOITIT",             // FI
+            "KAZANDIN",           // TR
+            "ПОБЕДА",             // RU
+            "ВЫ ПОБЕДИЛИ",        // RU
+            "ПЕРЕМОГА",           // UK
+            "你赢了",              // ZH (simplified)
+            "你贏了",              // ZH (traditional)
+            "勝利",                // JA, ZH
+            "승리",                // KO
+    };
+    private static final String[] GAME_OVER_KEYWORDS = {
+            "GAME OVER",          // EN, IT and most clients
+            "SPIEL VORBEI",       // DE
+            "PARTIE TERMINÉE",    // FR
+            "FIN DEL JUEGO",      // ES
+            "JUEGO TERMINADO",    // ES
+            "FIM DE JOGO",        // PT
+            "SPEL AFGELOPEN",     // NL
+            "KONIEC GRY",         // PL
+            "KONEC HRY",          // CS
+            "SPILLET ER SLUT",    // DA
+            "SPILLET ER OVER",    // NO
+            "SPELET ÄR SLUT",     // SV
+            "PELI PÄÄTTYI",       // FI
+            "OYUN BİTTİ",         // TR
+            "OYUN BITTI",         // TR (upper-cased without the Turkish locale)
+            "ИГРА ОКОНЧЕНА",      // RU
+            "ГРУ ЗАВЕРШЕНО",      // UK
+            "游戏结束",             // ZH (simplified)
+            "遊戲結束",             // ZH (traditional)
+            "ゲームオーバー",         // JA
+            "게임 오버",            // KO
+    };
+
+    // Automaton: per state, its transitions (sorted keys), failure link, and the longest keyword ending here
+    // (-1 if none) plus a link to the next state whose keyword is a proper suffix of this one's.
+    private static final char[][] KEYS;
+    private static final int[][] TARGETS;
+    private static final int[] FAIL;
+    private static final int[] MATCH;
+    private static final int[] MATCH_LINK;
+    // Per keyword
+    private static final int[] KIND;
+    private static final int[] LENGTH;
+    private static final boolean[] WHOLE_WORD;
+
+    static {
+        List<String> keywords = new ArrayList<>();
+        List<Integer> kinds = new ArrayList<>();
+        add(keywords, kinds, ROUND_KEYWORDS, ROUND);
+        add(keywords, kinds, VICTORY_KEYWORDS, VICTORY_KIND);
+        add(keywords, kinds, GAME_OVER_KEYWORDS, GAME_OVER_KIND);
+
+        int n = keywords.size();
+        KIND = new int[n];
+        LENGTH = new int[n];
+        WHOLE_WORD = new boolean[n];
+
+        // Trie
+        List<Map<Character, Integer>> children = new ArrayList<>();
+        List<Integer> match = new ArrayList<>();
+        children.add(new HashMap<>());
+        match.add(-1);
+        for (int k = 0; k < n; k++) {
+            String keyword = keywords.get(k);
+            if (keyword.length() > MAX_KEYWORD_LENGTH) {
+                throw new IllegalStateException("Title keyword too long: " + keyword);
+            }
+            KIND[k] = kinds.get(k);
+            LENGTH[k] = keyword.length();
+            WHOLE_WORD[k] = true;
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = keyword.charAt(i);
+                if (c >= 0x0800) {
+                    WHOLE_WORD[k] = false;
+                }
+                Integer next = children.get(state).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.add(new HashMap<>());
+                    match.add(-1);
+                    children.get(state).put(c, next);
+                }
+                state = next;
+            }
+            match.set(state, k);
+        }
+
+        int states = children.size();
+        KEYS = new char[states][];
+        TARGETS = new int[states][];
+        FAIL = new int[states];
+        MATCH = new int[states];
+        MATCH_LINK = new int[states];
+        for (int s = 0; s < states; s++) {
+            Character[] keys = children.get(s).keySet().toArray(new Character[0]);
+            Arrays.sort(keys);
+            KEYS[s] = new char[keys.length];
+            TARGETS[s] = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                KEYS[s][i] = keys[i];
+                TARGETS[s][i] = children.get(s).get(keys[i]);
+            }
+            MATCH[s] = match.get(s);
+        }
+
+        // Failure and match links, breadth first.
+        int[] queue = new int[states];
+        int head = 0;
+        int tail = 0;
+        MATCH_LINK[0] = -1;
+        for (int target : TARGETS[0]) {
+            FAIL[target] = 0;
+            MATCH_LINK[target] = -1;
+            queue[tail++] = target;
+        }
+        while (head < tail) {
+            int s = queue[head++];
+            for (int i = 0; i < KEYS[s].length; i++) {
+                char c = KEYS[s][i];
+                int target = TARGETS[s][i];
+                int f = FAIL[s];
+                int next;
+                while ((next = step(f, c)) < 0 && f != 0) {
+                    f = FAIL[f];
+                }
+                FAIL[target] = next < 0 ? 0 : next;
+                int fail = FAIL[target];
+                MATCH_LINK[target] = MATCH[fail] >= 0 ? fail : MATCH_LINK[fail];
+                queue[tail++] = target;
+            }
+        }
+    }
+
+    private static void add(List<String> keywords, List<Integer> kinds, String[] from, int kind) {
+        for (String keyword : from) {
+            keywords.add(keyword);
+            kinds.add(kind);
+        }
+    }
+
+    // Goto function without failure: the next state, or -1.
+    private static int step(int state, char c) {
+        int i = Arrays.binarySearch(KEYS[state], c);
+        return i < 0 ? -1 : TARGETS[state][i];
+    }
+
+    /**
+     * @return the round number (positive) for a round title, {@link #VICTORY}, {@link #GAME_OVER} or {@link #NONE}
+     */
+    public static int classify(String title) {
+        if (title == null) {
+            return NONE;
+        }
+        int state = 0;
+        long letters = 0L;  // bit i: the visible character i positions back is a letter
+        int found = 0;      // bit per kind
+        int pending = 0;    // whole-word matches waiting for a non-letter after them
+        long number = 0L;
+        boolean hasDigit = false;
+
+        int length = title.length();
+        for (int i = 0; i < length; i++) {
+            char c = title.charAt(i);
+            if (c == '§') {
+                i++;
+                continue;
+            }
+            boolean letter = Character.isLetter(c);
+            if (pending != 0) {
+                if (!letter) {
+                    found |= pending;
+                }
+                pending = 0;
+            }
+            letters = (letters << 1) | (letter ? 1L : 0L);
+            if (!letter) {
+                int digit = Character.digit(c, 10);
+                if (digit >= 0 && number <= Integer.MAX_VALUE) {
+                    number = number * 10 + digit;
+                    hasDigit = true;
+                }
+            }
+
+            char upper = Character.toUpperCase(c);
+            int next;
+            while ((next = step(state, upper)) < 0 && state != 0) {
+                state = FAIL[state];
+            }
+            state = next < 0 ? 0 : next;
+
+            for (int s = MATCH[state] >= 0 ? state : MATCH_LINK[state]; s >= 0; s = MATCH_LINK[s]) {
+                int k = MATCH[s];
+                if (!WHOLE_WORD[k]) {
+                    found |= 1 << KIND[k];
+                } else if ((letters & (1L << LENGTH[k])) == 0L) {
+                    pending |= 1 << KIND[k]; // starts a word; confirmed once the word ends
+                }
+            }
+        }
+        found |= pending;
+
+        if ((found & (1 << ROUND)) != 0 && hasDigit && number > 0L && number <= Integer.MAX_VALUE) {
+            return (int) number;
+        }
+        if ((found & (1 << VICTORY_KIND)) != 0) {
+            return VICTORY;
+        }
+        return (found & (1 << GAME_OVER_KIND)) != 0 ? GAME_OVER : NONE;
+    }
+}
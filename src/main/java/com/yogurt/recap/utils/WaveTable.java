@@ -0,0 +1,153 @@
+package com.yogurt.recap.utils;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.yogurt.recap.utils.LanguageUtils.ZombiesMap;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Wave spawn times of one map, flattened and pre-multiplied to ms. Immutable once parsed, so it can be built on
+ * one thread and read from another.
+ *
+ * The timing file is compact JSON: {@code {"version": n, "maps": {"PRISON": [[10, 20], [10, 20, 30], ...], ...}}},
+ * one array of wave start seconds per round. {@link #read} streams through it and only materializes the requested
+ * map; every other map is skipped token by token.
+ */
+public final class WaveTable {
+    public static final WaveTable EMPTY = new WaveTable(ZombiesMap.NULL, 0, new int[0], new int[1]);
+
+    private static final int MAX_WAVE_SECONDS = 3600;
+
+    private final ZombiesMap map;
+    private final int version;
+    // Round r (1-based) occupies waveMillis[roundOffsets[r - 1], roundOffsets[r]).
+    private final int[] waveMillis;
+    private final int[] roundOffsets;
+
+    private WaveTable(ZombiesMap map, int version, int[] waveMillis, int[] roundOffsets) {
+        this.map = map;
+        this.version = version;
+        this.waveMillis = waveMillis;
+        this.roundOffsets = roundOffsets;
+    }
+
+    /**
+     * The table for {@code map} from a timing file, or {@code null} if the file has no entry for it (the file's
+     * version is still reported through {@code versionOut[0]}).
+     *
+     * @throws IOException if the file is malformed or the map's table fails validation
+     */
+    public static WaveTable read(JsonReader in, ZombiesMap map, int[] versionOut) throws IOException {
+        int version = 0;
+        int[] waveMillis = null;
+        int[] roundOffsets = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (name.equals("version")) {
+                version = in.nextInt();
+            } else if (name.equals("maps")) {
+                in.beginObject();
+                while (in.hasNext()) {
+                    if (!in.nextName().equals(map.name())) {
+                        in.skipValue();
+                        continue;
+                    }
+                    // Round offsets first, then waves; both grown as needed.
+                    roundOffsets = new int[48];
+                    waveMillis = new int[192];
+                    int rounds = 0;
+                    int waves = 0;
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        in.beginArray();
+                        int previous = 0;
+                        while (in.hasNext()) {
+                            int seconds = in.nextInt();
+                            if (seconds <= previous || seconds > MAX_WAVE_SECONDS) {
+                                throw new IOException(map.name() + " round " + (rounds + 1) + ": wave times must be "
+                                        + "increasing and within 1.." + MAX_WAVE_SECONDS + " s, got " + seconds);
+                            }
+                            previous = seconds;
+                            if (waves == waveMillis.length) {
+                                waveMillis = Arrays.copyOf(waveMillis, waves * 2);
+                            }
+                            waveMillis[waves++] = seconds * 1000;
+                        }
+                        in.endArray();
+                        if (waves == roundOffsets[rounds]) {
+                            throw new IOException(map.name() + " round " + (rounds + 1) + " has no waves");
+                        }
+                        if (rounds + 2 > roundOffsets.length) {
+                            roundOffsets = Arrays.copyOf(roundOffsets, roundOffsets.length * 2);
+                        }
+                        roundOffsets[++rounds] = waves;
+                    }
+                    in.endArray();
+                    if (rounds == 0) {
+                        throw new IOException(map.name() + " has no rounds");
+                    }
+                    waveMillis = Arrays.copyOf(waveMillis, waves);
+                    roundOffsets = Arrays.copyOf(roundOffsets, rounds + 1);
+                }
+                in.endObject();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        if (in.peek() != JsonToken.END_DOCUMENT) {
+            throw new IOException("Trailing content after the timing table");
+        }
+        if (versionOut != null) {
+            versionOut[0] = version;
+        }
+        return waveMillis == null ? null : new WaveTable(map, version, waveMillis, roundOffsets);
+    }
+
+    public ZombiesMap getMap() {
+        return map;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int getRoundCount() {
+        return roundOffsets.length - 1;
+    }
+
+    /**
+     * Number of waves in {@code round} (1-based), or 0 if there is no timing data for it.
+     */
+    public int getWaveCount(int round) {
+        if (round < 1 || round >= roundOffsets.length) {
+            return 0;
+        }
+        return roundOffsets[round] - roundOffsets[round - 1];
+    }
+
+    /**
+     * Spawn time of {@code wave} (1-based) in {@code round}, in ms since the round title; -1 if unknown.
+     */
+    public int getWaveMillis(int round, int wave) {
+        if (wave < 1 || wave > getWaveCount(round)) {
+            return -1;
+        }
+        return waveMillis[roundOffsets[round - 1] + wave - 1];
+    }
+
+    /**
+     * Waves of {@code round} that have spawned after {@code elapsedMs} (0..waveCount), i.e. the insert position
+     * of {@code elapsedMs} in the round's boundaries. Reads the flattened table directly; no copies.
+     */
+    public int findWave(int round, int elapsedMs) {
+        if (getWaveCount(round) == 0) {
+            return 0;
+        }
+        int from = roundOffsets[round - 1];
+        return JavaUtils.findInsertPosition(waveMillis, from, roundOffsets[round], elapsedMs) - from;
+    }
+}